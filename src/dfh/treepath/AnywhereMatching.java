@@ -23,7 +23,8 @@ import dfh.treepath.PathGrammar.Axis;
  * 
  * @param <N>
  */
-class AnywhereMatching<N> extends TestSelector<N> {
+class AnywhereMatching<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 	private final NodeTest<N> test;
 	private final boolean first;
@@ -33,15 +34,7 @@ class AnywhereMatching<N> extends TestSelector<N> {
 		super(arguments, f);
 		this.first = first;
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
@@ -54,4 +47,19 @@ class AnywhereMatching<N> extends TestSelector<N> {
 				test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, first ? Axis.descendantOrSelf : Axis.descendant,
+				test, i, position);
+	}
+
+	@Override
+	public Relation relation() {
+		return first ? Relation.descendantOrSelf : Relation.descendant;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -21,24 +21,18 @@ import dfh.treepath.PathGrammar.Axis;
  * 
  * @param <N>
  */
-class AnywhereTag<N> extends TestSelector<N> {
+class AnywhereTag<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
 
 	private final boolean first;
 
-	AnywhereTag(final String tag, Match arguments, Forester<N> f, boolean first) {
+	AnywhereTag(String tag, Match arguments, Forester<N> f, boolean first) {
 		super(arguments, f);
 		this.first = first;
-		test = new NodeTest<N>() {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean passes(N n, Index<N> i) {
-				return i.f.hasTag(n, tag);
-			}
-		};
+		test = new TagTest<N>(tag);
 	}
 
 	@Override
@@ -47,4 +41,19 @@ class AnywhereTag<N> extends TestSelector<N> {
 				test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, first ? Axis.descendantOrSelf : Axis.descendant,
+				test, i, position);
+	}
+
+	@Override
+	public Relation relation() {
+		return first ? Relation.descendantOrSelf : Relation.descendant;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -21,7 +21,8 @@ import dfh.treepath.PathGrammar.Axis;
  * 
  * @param <N>
  */
-class AnywhereWildcard<N> extends WildcardSelector<N> {
+class AnywhereWildcard<N> extends WildcardSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 	private final boolean first;
 
@@ -36,4 +37,13 @@ class AnywhereWildcard<N> extends WildcardSelector<N> {
 				test, i);
 	}
 
+	@Override
+	public Relation relation() {
+		return first ? Relation.descendantOrSelf : Relation.descendant;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -0,0 +1,147 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Forester} for trees whose nodes hold their children in arrays.
+ * Rather than implementing {@link #children(Object, Index)}, which must
+ * return a list, an extension implements {@link #childArray(Object)}, and the
+ * forester presents each array to the rest of the library as a read-only list
+ * backed by the array itself, never copying it.
+ * <p>
+ * An extension also implements {@link #tag(Object)}, in terms of which
+ * {@link #hasTag(Object, String)} and {@link #matchesTag(Object, Pattern)} are
+ * defined. The forester's indices are {@link ParentIndex ParentIndices}, which
+ * record the parents of nodes as they walk the tree; if the nodes know their
+ * parents, extend {@link LinkedArrayForester} instead. For example
+ *
+ * <pre>
+ * class ElementForester extends ArrayForester&lt;Element&gt; {
+ * 	protected Element[] childArray(Element e) {
+ * 		return e.children;
+ * 	}
+ *
+ * 	protected String tag(Element e) {
+ * 		return e.tag;
+ * 	}
+ * }
+ * </pre>
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            a type of tree node
+ */
+public abstract class ArrayForester<N> extends FunctionalForester<N> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Delegates to {@link FunctionalForester#FunctionalForester(NodeTest...)}.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayForester(NodeTest<N>... ignore) {
+		super(ignore);
+	}
+
+	/**
+	 * Returns the array holding a node's children. The forester does not
+	 * modify the array, and neither may the extension while the tree is being
+	 * queried.
+	 *
+	 * @param n
+	 *            a node
+	 * @return the node's children; null or an empty array if it has none
+	 */
+	protected abstract N[] childArray(N n);
+
+	/**
+	 * Returns the tag of a node, which {@link #hasTag(Object, String)} and
+	 * {@link #matchesTag(Object, Pattern)} compare to the tag or pattern
+	 * sought.
+	 *
+	 * @param n
+	 *            a node
+	 * @return the node's tag; null if it has none
+	 */
+	@Override
+	protected abstract String tag(N n);
+
+	@Override
+	protected List<N> children(N n, Index<N> i) {
+		N[] children = childArray(n);
+		if (children == null || children.length == 0)
+			return Collections.emptyList();
+		return new ArrayKids<N>(children);
+	}
+
+	/**
+	 * Returns the parent the {@link ParentIndex} recorded.
+	 */
+	@Override
+	protected N parent(N n, Index<N> i) {
+		return ((ParentIndex<N>) i).parent(n);
+	}
+
+	/**
+	 * Compares the tag given by {@link #tag(Object)} to the tag sought.
+	 */
+	@Override
+	protected boolean hasTag(N n, String tag) {
+		return tag.equals(tag(n));
+	}
+
+	/**
+	 * Searches the tag given by {@link #tag(Object)} for the pattern.
+	 */
+	@Override
+	protected boolean matchesTag(N n, Pattern p) {
+		String tag = tag(n);
+		return tag != null && p.matcher(tag).find();
+	}
+
+	/**
+	 * Produces a {@link ParentIndex}.
+	 */
+	@Override
+	public Index<N> index(N root) {
+		return new ParentIndex<N>(root, this);
+	}
+
+	/**
+	 * A read-only list backed by an array of children.
+	 */
+	private static class ArrayKids<N> extends AbstractList<N> implements
+			RandomAccess {
+		private final N[] kids;
+
+		ArrayKids(N[] kids) {
+			this.kids = kids;
+		}
+
+		@Override
+		public N get(int index) {
+			return kids[index];
+		}
+
+		@Override
+		public int size() {
+			return kids.length;
+		}
+	}
+}
@@ -40,4 +40,16 @@ public @interface Attribute {
 	 * @return an optional brief description of the attribute
 	 */
 	String description() default "";
+
+	/**
+	 * Whether the attribute's value depends only on the context node and the
+	 * attribute's arguments. An attribute that examines the node's place in
+	 * the tree -- its parent, its children, its siblings -- or information
+	 * held by the {@link Index} should be marked {@code local = false}, so
+	 * that paths using it are not evaluated a node at a time, as by
+	 * {@link StreamingEvaluator}, where that information may not be available.
+	 * 
+	 * @return whether the attribute needs nothing but the node
+	 */
+	boolean local() default true;
 }
@@ -8,8 +8,11 @@
  */
 package dfh.treepath;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import dfh.grammar.Match;
 import dfh.treepath.ConditionalPredicate.Expression;
@@ -110,10 +113,66 @@ class AttributeTestExpression<N> implements Expression<N> {
 			throw new PathException("unknown comparison operator " + s);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public boolean test(N n, Collection<N> context, Index<N> i) {
-		Object rv = a.apply(n, context, i);
+		return test(a.apply(n, context, i), n, context, i);
+	}
+
+	/**
+	 * Tests a list of nodes at once, if the attribute has a
+	 * {@link BatchAttribute} method and is compared to a literal. Numeric
+	 * columns compared to numbers are scanned without boxing.
+	 * 
+	 * @param candidates
+	 *            the nodes to test
+	 * @param i
+	 *            tree index
+	 * @return the nodes passing the test, in order; null if the nodes must be
+	 *         tested one at a time
+	 */
+	List<N> filter(List<N> candidates, Index<N> i) {
+		if (vt == VType.a || c == ComparisonOperator.id
+				|| !a.batched(i.f))
+			return null;
+		Object column = a.column(candidates, i);
+		List<N> filtrate = new ArrayList<N>(candidates.size());
+		if (vt == VType.i || vt == VType.f) {
+			double d = ((Number) v).doubleValue();
+			if (column instanceof double[]) {
+				double[] values = (double[]) column;
+				for (int k = 0; k < values.length; k++) {
+					if (passes(Double.compare(values[k], d)))
+						filtrate.add(candidates.get(k));
+				}
+				return filtrate;
+			}
+			if (column instanceof long[]) {
+				long[] values = (long[]) column;
+				for (int k = 0; k < values.length; k++) {
+					if (passes(Double.compare(values[k], d)))
+						filtrate.add(candidates.get(k));
+				}
+				return filtrate;
+			}
+			if (column instanceof int[]) {
+				int[] values = (int[]) column;
+				for (int k = 0; k < values.length; k++) {
+					if (passes(Double.compare(values[k], d)))
+						filtrate.add(candidates.get(k));
+				}
+				return filtrate;
+			}
+		}
+		for (int k = 0, lim = candidates.size(); k < lim; k++) {
+			N n = candidates.get(k);
+			if (test(Array.get(column, k), n, candidates, i))
+				filtrate.add(n);
+		}
+		return filtrate;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean test(Object rv, N n, Collection<N> context, Index<N> i) {
 		if (c == ComparisonOperator.id) {
 			Object o = v;
 			if (vt == VType.a) {
@@ -162,14 +221,14 @@ class AttributeTestExpression<N> implements Expression<N> {
 					return c == ComparisonOperator.ne ? true : false;
 				}
 			} else
-				comparison = rv.toString().compareTo(o.toString());
+				comparison = TextView.compare(text(rv), text(o));
 			break;
 		case f:
 			if (rv instanceof Number)
 				comparison = Double.compare(((Number) rv).doubleValue(),
-						((Integer) v).doubleValue());
+						((Double) v).doubleValue());
 			else
-				comparison = rv.toString().compareTo(v.toString());
+				comparison = TextView.compare(text(rv), v.toString());
 			break;
 		case i:
 			if (rv instanceof Integer)
@@ -181,14 +240,34 @@ class AttributeTestExpression<N> implements Expression<N> {
 				comparison = ((Collection<?>) rv).size()
 						- ((Integer) v).intValue();
 			else
-				comparison = rv.toString().compareTo(v.toString());
+				comparison = TextView.compare(text(rv), v.toString());
 			break;
 		case l:
-			comparison = rv.toString().compareTo(v.toString());
+			comparison = TextView.compare(text(rv), (String) v);
 			break;
 		default:
 			throw new PathException("unexpected argument type " + vt);
 		}
+		return passes(comparison);
+	}
+
+	/**
+	 * @param o
+	 *            a value
+	 * @return o itself if it is a character sequence, its stringification
+	 *         otherwise
+	 */
+	private static CharSequence text(Object o) {
+		return o instanceof CharSequence ? (CharSequence) o : o.toString();
+	}
+
+	/**
+	 * @param comparison
+	 *            the result of comparing the attribute's value to the value it
+	 *            is tested against
+	 * @return whether the comparison satisfies the operator
+	 */
+	private boolean passes(int comparison) {
 		switch (c) {
 		case eg:
 			return comparison >= 0;
@@ -206,4 +285,12 @@ class AttributeTestExpression<N> implements Expression<N> {
 			throw new PathException("unexpected comparison operator " + c);
 		}
 	}
-}
\ No newline at end of file
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean local() {
+		if (vt == VType.a && !((CompiledAttribute<N>) v).local())
+			return false;
+		return a.local();
+	}
+}
@@ -33,6 +33,11 @@ class AttributeTestPredicate<N> extends Predicate<N> {
 
 	@Override
 	Collection<N> filter(Collection<N> c, Index<N> i) {
+		if (c.size() > 1) {
+			List<N> filtrate = a.filter(list(c), i);
+			if (filtrate != null)
+				return filtrate;
+		}
 		List<N> list = new ArrayList<N>(c.size());
 		for (N n : c) {
 			if (a.test(n, c, i))
@@ -41,4 +46,8 @@ class AttributeTestPredicate<N> extends Predicate<N> {
 		return list;
 	}
 
+	@Override
+	boolean local() {
+		return a.local();
+	}
 }
@@ -31,15 +31,7 @@ class AxisMatching<N> extends AxisSelector<N> {
 	AxisMatching(String axisName, String pattern, Match arguments, Forester<N> f) {
 		super(axisName, arguments, f);
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
@@ -51,4 +43,13 @@ class AxisMatching<N> extends AxisSelector<N> {
 		return i.f.axis(n, axis, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, axis, test, i, position);
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -11,7 +11,8 @@ package dfh.treepath;
 import dfh.grammar.Match;
 import dfh.treepath.PathGrammar.Axis;
 
-abstract class AxisSelector<N> extends TestSelector<N> {
+abstract class AxisSelector<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	protected final Axis axis;
@@ -20,4 +21,28 @@ abstract class AxisSelector<N> extends TestSelector<N> {
 		super(predicates, f);
 		axis = Axis.vo(axisName);
 	}
+
+	@Override
+	public Relation relation() {
+		return axisRelation();
+	}
+
+	/**
+	 * @return the relation the step's axis bears to the node it is walked
+	 *         from, or {@code null} if it is not a forward axis
+	 */
+	Relation axisRelation() {
+		switch (axis) {
+		case self:
+			return Relation.self;
+		case child:
+			return Relation.child;
+		case descendant:
+			return Relation.descendant;
+		case descendantOrSelf:
+			return Relation.descendantOrSelf;
+		default:
+			return null;
+		}
+	}
 }
@@ -26,16 +26,9 @@ class AxisTag<N> extends AxisSelector<N> {
 
 	protected final NodeTest<N> test;
 
-	AxisTag(String axisName, final String tag, Match predicates, Forester<N> f) {
+	AxisTag(String axisName, String tag, Match predicates, Forester<N> f) {
 		super(axisName, predicates, f);
-		test = new NodeTest<N>() {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean passes(N n, Index<N> i) {
-				return i.f.hasTag(n, tag);
-			}
-		};
+		test = new TagTest<N>(tag);
 	}
 
 	@Override
@@ -43,4 +36,13 @@ class AxisTag<N> extends AxisSelector<N> {
 		return i.f.axis(n, axis, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, axis, test, i, position);
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -33,4 +33,15 @@ class AxisWildcard<N> extends AxisSelector<N> {
 		return i.f.axis(n, axis, (NodeTest<N>) TrueTest.test(), i);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, axis, (NodeTest<N>) TrueTest.test(), i, position);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public NodeTest<N> test() {
+		return (NodeTest<N>) TrueTest.test();
+	}
 }
@@ -0,0 +1,65 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that evaluates an {@link Attribute} for a whole list of nodes
+ * at once. Predicates such as {@code [@foo > 1]} or {@code [@bar]} use it,
+ * where the attribute's arguments are all literals, to compute the attribute
+ * for every candidate node in one call and then scan the results.
+ * <p>
+ * The method's parameters are
+ * <ol>
+ * <li>a {@link java.util.List} of nodes
+ * <li>an {@link Index}
+ * <li>a column to fill with the attribute's value for each node in the list:
+ * a {@code boolean[]}, {@code int[]}, {@code long[]}, {@code double[]}, or
+ * {@code Object[]} the same length as the list
+ * <li>the arguments of the attribute, if any, of the same types as those of
+ * the attribute method
+ * </ol>
+ * and it returns nothing. For example
+ *
+ * <pre>
+ * &#064;Attribute(value = &quot;weight&quot;)
+ * Double weight(Node n, Collection&lt;Node&gt; c, Index&lt;Node&gt; i) {
+ * 	return weights[n.id];
+ * }
+ *
+ * &#064;BatchAttribute(&quot;weight&quot;)
+ * void weight(List&lt;Node&gt; nodes, Index&lt;Node&gt; i, double[] column) {
+ * 	for (int k = 0; k &lt; column.length; k++)
+ * 		column[k] = weights[nodes.get(k).id];
+ * }
+ * </pre>
+ *
+ * A batch method must agree with the attribute it accompanies, which is still
+ * used wherever the batch method cannot be.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface BatchAttribute {
+	/**
+	 * The name of the attribute this method evaluates.
+	 *
+	 * @return the name of the attribute this method evaluates
+	 */
+	String value();
+}
@@ -13,6 +13,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import dfh.grammar.Match;
+import dfh.treepath.PathGrammar.Axis;
 
 /**
  * {@link Selector} implementing {@code /~foo~} and the like.
@@ -22,7 +23,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class ChildMatching<N> extends TestSelector<N> {
+class ChildMatching<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
@@ -30,15 +32,7 @@ class ChildMatching<N> extends TestSelector<N> {
 	ChildMatching(String pattern, Match arguments, Forester<N> f) {
 		super(arguments, f);
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
@@ -50,4 +44,18 @@ class ChildMatching<N> extends TestSelector<N> {
 		return i.f.children(n, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, Axis.child, test, i, position);
+	}
+
+	@Override
+	public Relation relation() {
+		return Relation.child;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
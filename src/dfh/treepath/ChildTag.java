@@ -11,6 +11,7 @@ package dfh.treepath;
 import java.util.Collection;
 
 import dfh.grammar.Match;
+import dfh.treepath.PathGrammar.Axis;
 
 /**
  * {@link Selector} implementing {@code /foo} and the like.
@@ -20,21 +21,15 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class ChildTag<N> extends TestSelector<N> {
+class ChildTag<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
 
-	ChildTag(final String tag, Match arguments, Forester<N> f) {
+	ChildTag(String tag, Match arguments, Forester<N> f) {
 		super(arguments, f);
-		test = new NodeTest<N>() {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean passes(N n, Index<N> i) {
-				return i.f.hasTag(n, tag);
-			}
-		};
+		test = new TagTest<N>(tag);
 	}
 
 	@Override
@@ -42,4 +37,18 @@ class ChildTag<N> extends TestSelector<N> {
 		return i.f.children(n, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(n, Axis.child, test, i, position);
+	}
+
+	@Override
+	public Relation relation() {
+		return Relation.child;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
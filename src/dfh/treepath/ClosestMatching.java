@@ -22,7 +22,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class ClosestMatching<N> extends TestSelector<N> {
+class ClosestMatching<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
@@ -30,15 +31,7 @@ class ClosestMatching<N> extends TestSelector<N> {
 	ClosestMatching(String pattern, Match arguments, Forester<N> f) {
 		super(arguments, f);
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
@@ -50,4 +43,13 @@ class ClosestMatching<N> extends TestSelector<N> {
 		return i.f.closest(n, test, i);
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.closest;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
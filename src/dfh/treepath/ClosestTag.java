@@ -20,21 +20,15 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class ClosestTag<N> extends TestSelector<N> {
+class ClosestTag<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
 
-	ClosestTag(final String tag, Match arguments, Forester<N> f) {
+	ClosestTag(String tag, Match arguments, Forester<N> f) {
 		super(arguments, f);
-		test = new NodeTest<N>() {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean passes(N n, Index<N> i) {
-				return i.f.hasTag(n, tag);
-			}
-		};
+		test = new TagTest<N>(tag);
 	}
 
 	@Override
@@ -42,4 +36,13 @@ class ClosestTag<N> extends TestSelector<N> {
 		return i.f.closest(n, test, i);
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.closest;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
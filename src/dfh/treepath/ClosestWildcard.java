@@ -20,7 +20,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class ClosestWildcard<N> extends WildcardSelector<N> {
+class ClosestWildcard<N> extends WildcardSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	public ClosestWildcard(Match arguments, Forester<N> f) {
@@ -34,4 +35,13 @@ class ClosestWildcard<N> extends WildcardSelector<N> {
 		return i.f.closest(n, test, i);
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.closest;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
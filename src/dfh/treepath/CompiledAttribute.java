@@ -13,6 +13,8 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import dfh.grammar.Match;
 import dfh.grammar.MatchTest;
@@ -25,7 +27,8 @@ import dfh.treepath.ConditionalPredicate.Expression;
  * if any. Any attributes or paths in the argument list will be evaluated for
  * the relevant node when the attribute value is computed and the actual
  * arguments given to the method will be the returned node collection or
- * attribute return value.
+ * attribute return value. Literal arguments for {@link Pattern} parameters are
+ * compiled once, when the attribute is.
  * <p>
  * 
  * @author David F. Houghton - Apr 28, 2012
@@ -37,6 +40,15 @@ class CompiledAttribute<N> implements Serializable {
 	private transient InstanceWrapper a;
 	private final Object[] args;
 	private final String name;
+	/**
+	 * Whether some argument must be compiled into a {@link Pattern} as it is
+	 * evaluated, not being a literal.
+	 */
+	private final boolean patterns;
+	/**
+	 * Whether the attribute method is marked {@link Attribute#local()}.
+	 */
+	private final boolean local;
 	private static final MatchTest argTest = new MatchTest() {
 		private static final long serialVersionUID = 1L;
 
@@ -50,6 +62,8 @@ class CompiledAttribute<N> implements Serializable {
 		String s = m.first("aname").group();
 		name = s.substring(1).replaceAll("\\\\(.)", "$1");
 		getA(f);
+		Attribute annotation = a.method().getAnnotation(Attribute.class);
+		local = annotation == null || annotation.local();
 		List<Match> argList = m.children()[1].closest(argTest);
 		args = new Object[argList.size()];
 		int index = 0;
@@ -58,6 +72,40 @@ class CompiledAttribute<N> implements Serializable {
 			Object o = parseArgument(m, f, am);
 			args[index++] = o;
 		}
+		// literal patterns are compiled now rather than for each node
+		Class<?>[] params = a.evaluator().getParameterTypes();
+		boolean patterns = false;
+		for (int j = 0; j < args.length; j++) {
+			if (!isPattern(a.evaluator(), params, j + 3))
+				continue;
+			if (args[j] instanceof String) {
+				try {
+					args[j] = Pattern.compile((String) args[j]);
+				} catch (PatternSyntaxException e) {
+					throw new PathException("bad pattern in attribute @"
+							+ name + ": " + e.getMessage());
+				}
+			} else
+				patterns = true;
+		}
+		this.patterns = patterns;
+	}
+
+	/**
+	 * @param m
+	 *            attribute method
+	 * @param params
+	 *            its parameter types
+	 * @param index
+	 *            a parameter position
+	 * @return whether the parameter at this position, not counting a variable
+	 *         argument list, is a {@link Pattern}
+	 */
+	private static boolean isPattern(Method m, Class<?>[] params, int index) {
+		if (index >= params.length
+				|| m.isVarArgs() && index == params.length - 1)
+			return false;
+		return params[index] == Pattern.class;
 	}
 
 	/**
@@ -101,7 +149,12 @@ class CompiledAttribute<N> implements Serializable {
 			arg = arg.children()[0];
 			String subtype = arg.rule().label().id;
 			if (subtype.equals("signed_int")) {
-				o = new Integer(arg.group());
+				try {
+					o = new Integer(arg.group());
+				} catch (NumberFormatException e) {
+					// too large for an int, as times in milliseconds are
+					o = Double.valueOf(arg.group());
+				}
 			} else if (subtype.equals("float")) {
 				o = new Double(arg.group());
 			} else {
@@ -117,20 +170,51 @@ class CompiledAttribute<N> implements Serializable {
 
 	Object apply(N n, Collection<N> c, Index<N> i) {
 		getA(i.f);
+		Object[] ops = arguments(a.evaluator(), 3, n, c, i);
+		ops[0] = n;
+		ops[1] = c;
+		ops[2] = i;
+		try {
+			return a.evaluator().invoke(a.instance(i.f), ops);
+		} catch (Exception e) {
+			String msg = e.getMessage();
+			if (msg == null)
+				msg = "check parameters";
+			throw new PathException("attribute '" + name
+					+ "' failed during application: " + msg);
+		}
+	}
+
+	/**
+	 * Builds the parameter list for a call to m, evaluating the arguments of
+	 * the attribute for a node.
+	 * 
+	 * @param m
+	 *            the attribute method or its batch method
+	 * @param offset
+	 *            the number of parameters preceding the attribute's arguments
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            the collection of which n is a member
+	 * @param i
+	 *            tree index
+	 * @return the parameters, with the first offset left empty
+	 */
+	private Object[] arguments(Method m, int offset, N n, Collection<N> c,
+			Index<N> i) {
 		Object[] ops;
 		int varArgsIndex = -1;
 		Class<?> arType = null;
-		if (a.method().isVarArgs()) {
-			Class<?>[] params = a.method().getParameterTypes();
+		if (m.isVarArgs()) {
+			Class<?>[] params = m.getParameterTypes();
 			ops = new Object[params.length];
 			varArgsIndex = params.length - 1;
 			arType = params[varArgsIndex].getComponentType();
 		} else
-			ops = new Object[args.length + 3];
-		ops[0] = n;
-		ops[1] = c;
-		ops[2] = i;
-		int index = 3;
+			ops = new Object[args.length + offset];
+		Class<?>[] params = patterns ? m.getParameterTypes() : null;
+		int index = offset;
 		for (int j = 0; j < args.length; j++, index++) {
 			if (index == varArgsIndex) {
 				int size = args.length - j;
@@ -139,22 +223,99 @@ class CompiledAttribute<N> implements Serializable {
 				for (int k = 0; j < args.length; j++, k++) {
 					Object o = args[j];
 					o = objectifyArgument(n, c, i, o);
+					if (arType == String.class && o instanceof CharSequence)
+						o = o.toString();
 					Array.set(ar, k, arType.cast(o));
 				}
 				break;
 			}
 			Object o = args[j];
-			ops[index] = objectifyArgument(n, c, i, o);
+			o = objectifyArgument(n, c, i, o);
+			if (o instanceof CharSequence && !(o instanceof String)) {
+				// a view of some text, such as MatchPath's @group, is copied
+				// only for a method that wants a String
+				if (params == null)
+					params = m.getParameterTypes();
+				if (index < params.length && params[index] == String.class)
+					o = o.toString();
+			}
+			if (patterns && o instanceof CharSequence
+					&& isPattern(m, params, index)) {
+				try {
+					o = Pattern.compile(o.toString());
+				} catch (PatternSyntaxException e) {
+					throw new PathException("attribute '" + name
+							+ "' failed during application: "
+							+ e.getMessage());
+				}
+			}
+			ops[index] = o;
 		}
+		return ops;
+	}
+
+	/**
+	 * @param type
+	 *            a parameter type
+	 * @return whether a {@link BatchAttribute} method may take a column of
+	 *         this type
+	 */
+	static boolean isColumn(Class<?> type) {
+		return type == boolean[].class || type == int[].class
+				|| type == long[].class || type == double[].class
+				|| type == Object[].class;
+	}
+
+	/**
+	 * Returns whether the attribute can be evaluated for many nodes at once by
+	 * {@link #column(List, Index)}: whether it has a {@link BatchAttribute}
+	 * method and all its arguments are literals.
+	 * 
+	 * @param f
+	 *            the forester evaluating the attribute
+	 * @return whether {@link #column(List, Index)} may be called
+	 */
+	boolean batched(Forester<N> f) {
+		getA(f);
+		if (a.batch() == null)
+			return false;
+		for (Object o : args) {
+			if (!(o instanceof String || o instanceof Number
+					|| o instanceof Pattern))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates a {@link #batched(Forester) batched} attribute for a list of
+	 * nodes.
+	 * 
+	 * @param c
+	 *            nodes
+	 * @param i
+	 *            tree index
+	 * @return a column holding the attribute's value for each node in turn; an
+	 *         array of the type taken by the {@link BatchAttribute} method
+	 */
+	Object column(List<N> c, Index<N> i) {
+		Method m = a.batch();
+		Object column = Array.newInstance(
+				m.getParameterTypes()[2].getComponentType(), c.size());
+		Object[] ops = arguments(m, 3, null, c, i);
+		ops[0] = c;
+		ops[1] = i;
+		ops[2] = column;
 		try {
-			return a.method().invoke(a.instance(i.f), ops);
+			m.invoke(a.instance(i.f), ops);
 		} catch (Exception e) {
 			String msg = e.getMessage();
 			if (msg == null)
 				msg = "check parameters";
-			throw new PathException("attribute '" + name
+			throw new PathException("batch attribute '" + name
 					+ "' failed during application: " + msg);
 		}
+		return column;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -168,11 +329,34 @@ class CompiledAttribute<N> implements Serializable {
 			return ate.test(n, c, i);
 		} else if (o instanceof Path<?>) {
 			Path<N> p = (Path<N>) o;
-			return p.sel(n, i);
+			return p.nested(n, i);
 		} else if (o instanceof Expression<?>) {
 			return ((Expression<N>) o).test(n, c, i);
 		} else {
 			return o;
 		}
 	}
+
+	/**
+	 * Returns whether the attribute can be evaluated for a node in isolation:
+	 * whether it is marked {@link Attribute#local()} and its arguments contain
+	 * no paths and no attributes that are not.
+	 * 
+	 * @return whether the attribute needs nothing but the node
+	 */
+	@SuppressWarnings("unchecked")
+	boolean local() {
+		if (!local)
+			return false;
+		for (Object o : args) {
+			if (o instanceof Path<?>)
+				return false;
+			if (o instanceof CompiledAttribute<?>
+					&& !((CompiledAttribute<N>) o).local())
+				return false;
+			if (o instanceof Expression<?> && !((Expression<N>) o).local())
+				return false;
+		}
+		return true;
+	}
 }
@@ -9,6 +9,7 @@
 package dfh.treepath;
 
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -21,6 +22,11 @@ class ConditionalPredicate<N> extends Predicate<N> {
 
 	interface Expression<N> extends Serializable {
 		abstract boolean test(N n, Collection<N> c, Index<N> i);
+
+		/**
+		 * @return whether the expression contains no path
+		 */
+		abstract boolean local();
 	}
 
 	private static class PathExpression<N> implements Expression<N> {
@@ -33,7 +39,12 @@ class ConditionalPredicate<N> extends Predicate<N> {
 
 		@Override
 		public boolean test(N n, Collection<N> c, Index<N> i) {
-			return !path.sel(n, i).isEmpty();
+			return path.selectsAny(n, i);
+		}
+
+		@Override
+		public boolean local() {
+			return false;
 		}
 
 	}
@@ -46,22 +57,67 @@ class ConditionalPredicate<N> extends Predicate<N> {
 			a = new CompiledAttribute<N>(m, f);
 		}
 
-		@SuppressWarnings("unchecked")
 		@Override
 		public boolean test(N n, Collection<N> c, Index<N> i) {
-			Object o = a.apply(n, c, i);
+			return truth(a.apply(n, c, i));
+		}
+
+		/**
+		 * Tests a list of nodes at once if the attribute has a
+		 * {@link BatchAttribute} method.
+		 * 
+		 * @param c
+		 *            the nodes to test
+		 * @param i
+		 *            tree index
+		 * @return the nodes passing the test, in order; null if the nodes must
+		 *         be tested one at a time
+		 */
+		List<N> filter(List<N> c, Index<N> i) {
+			if (!a.batched(i.f))
+				return null;
+			Object column = a.column(c, i);
+			List<N> filtrate = new ArrayList<N>(c.size());
+			if (column instanceof boolean[]) {
+				boolean[] values = (boolean[]) column;
+				for (int k = 0; k < values.length; k++) {
+					if (values[k])
+						filtrate.add(c.get(k));
+				}
+			} else if (column instanceof Object[]) {
+				Object[] values = (Object[]) column;
+				for (int k = 0; k < values.length; k++) {
+					if (truth(values[k]))
+						filtrate.add(c.get(k));
+				}
+			} else {
+				for (int k = 0, lim = c.size(); k < lim; k++) {
+					if (truth(Array.get(column, k)))
+						filtrate.add(c.get(k));
+				}
+			}
+			return filtrate;
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean truth(Object o) {
 			if (o == null)
 				return false;
 			if (o instanceof Boolean)
 				return ((Boolean) o).booleanValue();
 			if (o instanceof Collection<?>)
 				return !((Collection<N>) o).isEmpty();
-			if (o instanceof String)
-				return ((String) o).length() > 0;
+			if (o instanceof CharSequence)
+				return ((CharSequence) o).length() > 0;
 			if (o instanceof Number)
 				return ((Number) o).doubleValue() != 0D;
 			return true;
 		}
+
+		@Override
+		public boolean local() {
+			return a.local();
+		}
 	}
 
 	private static class NotExpression<N> implements Expression<N> {
@@ -76,6 +132,11 @@ class ConditionalPredicate<N> extends Predicate<N> {
 		public boolean test(N n, Collection<N> c, Index<N> i) {
 			return !e.test(n, c, i);
 		}
+
+		@Override
+		public boolean local() {
+			return e.local();
+		}
 	}
 
 	private static class AndExpression<N> implements Expression<N> {
@@ -101,6 +162,15 @@ class ConditionalPredicate<N> extends Predicate<N> {
 			return true;
 		}
 
+		@Override
+		public boolean local() {
+			for (Expression<N> e : expressions) {
+				if (!e.local())
+					return false;
+			}
+			return true;
+		}
+
 	}
 
 	private static class OrExpression<N> implements Expression<N> {
@@ -126,6 +196,15 @@ class ConditionalPredicate<N> extends Predicate<N> {
 			return false;
 		}
 
+		@Override
+		public boolean local() {
+			for (Expression<N> e : expressions) {
+				if (!e.local())
+					return false;
+			}
+			return true;
+		}
+
 	}
 
 	private static class XorExpression<N> implements Expression<N> {
@@ -154,6 +233,15 @@ class ConditionalPredicate<N> extends Predicate<N> {
 			return count == 1;
 		}
 
+		@Override
+		public boolean local() {
+			for (Expression<N> e : expressions) {
+				if (!e.local())
+					return false;
+			}
+			return true;
+		}
+
 	}
 
 	private final Expression<N> e;
@@ -204,8 +292,18 @@ class ConditionalPredicate<N> extends Predicate<N> {
 		return ex;
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	Collection<N> filter(Collection<N> c, Index<N> i) {
+		if (c.size() > 1) {
+			List<N> filtrate = null;
+			if (e instanceof AttributeExpression<?>)
+				filtrate = ((AttributeExpression<N>) e).filter(list(c), i);
+			else if (e instanceof AttributeTestExpression<?>)
+				filtrate = ((AttributeTestExpression<N>) e).filter(list(c), i);
+			if (filtrate != null)
+				return filtrate;
+		}
 		List<N> filtrate = new ArrayList<N>(c.size());
 		for (N n : c) {
 			if (e.test(n, c, i))
@@ -214,4 +312,9 @@ class ConditionalPredicate<N> extends Predicate<N> {
 		return filtrate;
 	}
 
+	@Override
+	boolean local() {
+		return e.local();
+	}
+
 }
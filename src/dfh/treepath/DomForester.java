@@ -0,0 +1,344 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * A {@link Forester} for {@link org.w3c.dom} trees. It follows the links DOM
+ * nodes keep to their parents and siblings, so its indices record no parents,
+ * and it presents each node's {@link NodeList} of children as a list without
+ * copying it.
+ * <p>
+ * An element's tag is its local name or, if it was created without a
+ * namespace, its node name. Other nodes -- documents, text, comments, and so
+ * forth -- bear no tag, though they are found by wildcards such as {@code //*}
+ * unless ignored. {@link #standard()} ignores comments, processing
+ * instructions, and text consisting of whitespace alone; {@link #elements()}
+ * ignores everything but elements. An element's {@code id} attribute is its
+ * id for the purposes of expressions such as {@code id(foo)}.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class DomForester extends FunctionalForester<Node> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * {@link NodeTest} matching text nodes, including CDATA sections.
+	 */
+	public static final NodeTest<Node> textNT = new NodeTest<Node>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean passes(Node n, Index<Node> i) {
+			short type = n.getNodeType();
+			return type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE;
+		}
+	};
+	/**
+	 * {@link NodeTest} matching text nodes consisting of nothing but the
+	 * whitespace characters {@code [ \t\n\x0B\f\r]}.
+	 */
+	public static final NodeTest<Node> whitespaceNT = new NodeTest<Node>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean passes(Node n, Index<Node> i) {
+			if (n.getNodeType() != Node.TEXT_NODE)
+				return false;
+			String s = n.getNodeValue();
+			return MatchPath.whitespace(s, 0, s.length());
+		}
+	};
+	/**
+	 * {@link NodeTest} matching comments.
+	 */
+	public static final NodeTest<Node> commentNT = new NodeTest<Node>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean passes(Node n, Index<Node> i) {
+			return n.getNodeType() == Node.COMMENT_NODE;
+		}
+	};
+	/**
+	 * {@link NodeTest} matching processing instructions.
+	 */
+	public static final NodeTest<Node> processingInstructionNT = new NodeTest<Node>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean passes(Node n, Index<Node> i) {
+			return n.getNodeType() == Node.PROCESSING_INSTRUCTION_NODE;
+		}
+	};
+	/**
+	 * {@link NodeTest} matching everything but elements.
+	 */
+	public static final NodeTest<Node> nonElementNT = new NodeTest<Node>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean passes(Node n, Index<Node> i) {
+			return n.getNodeType() != Node.ELEMENT_NODE;
+		}
+	};
+	@SuppressWarnings("unchecked")
+	private static final DomForester standard = new DomForester(commentNT,
+			processingInstructionNT, whitespaceNT);
+	@SuppressWarnings("unchecked")
+	private static final DomForester elements = new DomForester(nonElementNT);
+
+	/**
+	 * Delegates to {@link FunctionalForester#FunctionalForester(NodeTest...)}.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public DomForester(NodeTest<Node>... ignore) {
+		super(ignore);
+	}
+
+	/**
+	 * Returns as a singleton instance a {@link DomForester} that ignores
+	 * comments, processing instructions, and whitespace-only text.
+	 *
+	 * @return a {@link DomForester} that ignores the nodes XML formatting
+	 *         introduces
+	 */
+	public static DomForester standard() {
+		return standard;
+	}
+
+	/**
+	 * Returns as a singleton instance a {@link DomForester} that ignores all
+	 * nodes but elements.
+	 *
+	 * @return a {@link DomForester} that sees only elements
+	 */
+	public static DomForester elements() {
+		return elements;
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @return the local name of n, or its node name if it has none, if n is
+	 *         an element; null otherwise
+	 */
+	private static String localName(Node n) {
+		if (n.getNodeType() != Node.ELEMENT_NODE)
+			return null;
+		String name = n.getLocalName();
+		return name == null ? n.getNodeName() : name;
+	}
+
+	/**
+	 * Returns a read-only view of {@link Node#getChildNodes()} as a list.
+	 */
+	@Override
+	protected List<Node> children(Node n, Index<Node> i) {
+		if (!n.hasChildNodes())
+			return Collections.emptyList();
+		return new NodeListView(n.getChildNodes());
+	}
+
+	@Override
+	protected boolean hasTag(Node n, String tag) {
+		return tag.equals(localName(n));
+	}
+
+	@Override
+	protected String tag(Node n) {
+		return localName(n);
+	}
+
+	@Override
+	protected boolean matchesTag(Node n, Pattern p) {
+		String tag = localName(n);
+		return tag != null && p.matcher(tag).find();
+	}
+
+	/**
+	 * Calls {@link Node#getParentNode()}, unless n is the root of the index,
+	 * which has no parent even if it is not the root of its document.
+	 */
+	@Override
+	protected Node parent(Node n, Index<Node> i) {
+		if (i.isRoot(n))
+			return null;
+		return n.getParentNode();
+	}
+
+	/**
+	 * Produces an index identifying elements by their {@code id} attributes.
+	 */
+	@Override
+	public Index<Node> index(Node root) {
+		return new Index<Node>(root, this) {
+			@Override
+			public String id(Node n) {
+				if (n.getNodeType() != Node.ELEMENT_NODE)
+					return null;
+				Element e = (Element) n;
+				return e.hasAttribute("id") ? e.getAttribute("id") : null;
+			}
+		};
+	}
+
+	/**
+	 * Walks {@link Node#getPreviousSibling()}.
+	 */
+	@Override
+	protected List<Node> precedingSiblings(Node n, NodeTest<Node> t,
+			Index<Node> i) {
+		if (i.isRoot(n))
+			return Collections.emptyList();
+		List<Node> siblings = new ArrayList<Node>();
+		for (Node s = n.getPreviousSibling(); s != null; s = s
+				.getPreviousSibling()) {
+			if (!ignored(s, i) && t.passes(s, i))
+				siblings.add(s);
+		}
+		Collections.reverse(siblings);
+		return siblings;
+	}
+
+	/**
+	 * Walks {@link Node#getNextSibling()}.
+	 */
+	@Override
+	protected List<Node> followingSiblings(Node n, NodeTest<Node> t,
+			Index<Node> i) {
+		if (i.isRoot(n))
+			return Collections.emptyList();
+		List<Node> siblings = new ArrayList<Node>();
+		for (Node s = n.getNextSibling(); s != null; s = s.getNextSibling()) {
+			if (!ignored(s, i) && t.passes(s, i))
+				siblings.add(s);
+		}
+		return siblings;
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @param i
+	 *            tree index
+	 * @return whether n passes any of the tests in {@link Forester#ignore}
+	 */
+	private boolean ignored(Node n, Index<Node> i) {
+		for (NodeTest<Node> t : ignore) {
+			if (t.passes(n, i))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @param name
+	 *            attribute name
+	 * @return the value of the element's attribute, if it is an element and
+	 *         has one by this name; null otherwise
+	 */
+	@Attribute(description = "the value of an XML attribute")
+	public String attr(Node n, Collection<Node> c, Index<Node> i, String name) {
+		if (n.getNodeType() != Node.ELEMENT_NODE)
+			return null;
+		Element e = (Element) n;
+		return e.hasAttribute(name) ? e.getAttribute(name) : null;
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the element's local name; null if the node is not an element
+	 */
+	@Attribute(description = "the element's local name")
+	public String tag(Node n, Collection<Node> c, Index<Node> i) {
+		return localName(n);
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the node's namespace URI, if any
+	 */
+	@Attribute(description = "the node's namespace URI")
+	public String ns(Node n, Collection<Node> c, Index<Node> i) {
+		return n.getNamespaceURI();
+	}
+
+	/**
+	 * Calls {@link Node#getTextContent()}.
+	 *
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the text content of the node and its descendants
+	 */
+	@Attribute(description = "the text content of the node and its descendants", local = false)
+	public String text(Node n, Collection<Node> c, Index<Node> i) {
+		return n.getTextContent();
+	}
+
+	/**
+	 * A read-only view of a {@link NodeList}.
+	 */
+	private static class NodeListView extends AbstractList<Node> implements
+			RandomAccess {
+		private final NodeList list;
+
+		NodeListView(NodeList list) {
+			this.list = list;
+		}
+
+		@Override
+		public Node get(int index) {
+			if (index < 0 || index >= list.getLength())
+				throw new IndexOutOfBoundsException("index: " + index);
+			return list.item(index);
+		}
+
+		@Override
+		public int size() {
+			return list.getLength();
+		}
+	}
+}
@@ -0,0 +1,366 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Forester} for file systems, whose nodes are
+ * {@link java.nio.file.Path java.nio.file.Paths}. A file's tag is its name, so
+ * {@code //~\.log$~[@size > 1000000]} finds the large log files under the root.
+ * A directory's children are its entries in order by name. Symbolic links are
+ * not followed, so a link to a directory is a leaf.
+ * <p>
+ * The index this forester builds walks the directories under the root in
+ * parallel, on a {@link ForkJoinPool} of {@link #parallelism} threads, reading
+ * each directory's entries and the {@link BasicFileAttributes} of each file
+ * once. Queries against the index take both from memory. The tree is a
+ * snapshot of the file system as the index found it; files created after it
+ * was built are not found, and those deleted still are. Entries the walk
+ * cannot read, or which vanish while it runs, are left out of the tree, and
+ * directories it cannot list are leaves; either way the index records them,
+ * and {@link #skipped(Index)} lists them.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class FileForester extends FunctionalForester<java.nio.file.Path> {
+	private static final long serialVersionUID = 1L;
+	private static final LinkOption[] noFollow = { LinkOption.NOFOLLOW_LINKS };
+
+	/**
+	 * The number of threads with which an index walks the file system.
+	 */
+	protected final int parallelism;
+
+	/**
+	 * Constructs a forester whose indices walk the file system with a thread
+	 * for each available processor.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public FileForester(NodeTest<java.nio.file.Path>... ignore) {
+		this(Runtime.getRuntime().availableProcessors(), ignore);
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of threads with which an index walks the file
+	 *            system
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public FileForester(int parallelism, NodeTest<java.nio.file.Path>... ignore) {
+		super(ignore);
+		if (parallelism < 1)
+			throw new PathException("parallelism must be positive: "
+					+ parallelism);
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Lists the entries of a directory in order by name.
+	 *
+	 * @param dir
+	 *            a directory
+	 * @return its entries
+	 * @throws IOException
+	 */
+	private static List<java.nio.file.Path> list(java.nio.file.Path dir)
+			throws IOException {
+		List<java.nio.file.Path> entries = new ArrayList<java.nio.file.Path>();
+		DirectoryStream<java.nio.file.Path> ds = Files.newDirectoryStream(dir);
+		try {
+			for (java.nio.file.Path p : ds)
+				entries.add(p);
+		} finally {
+			ds.close();
+		}
+		Collections.sort(entries);
+		return entries;
+	}
+
+	/**
+	 * Reads the attributes of a file, not following links.
+	 *
+	 * @param p
+	 *            a file
+	 * @return its attributes
+	 */
+	private static BasicFileAttributes read(java.nio.file.Path p) {
+		try {
+			return Files.readAttributes(p, BasicFileAttributes.class, noFollow);
+		} catch (IOException e) {
+			throw new PathException("could not read the attributes of " + p, e);
+		}
+	}
+
+	/**
+	 * @param p
+	 *            a file
+	 * @param i
+	 *            tree index
+	 * @return the attributes of p, from i if it has them
+	 */
+	private static BasicFileAttributes attributes(java.nio.file.Path p,
+			Index<java.nio.file.Path> i) {
+		if (i instanceof FileIndex) {
+			BasicFileAttributes a = ((FileIndex) i).attributes.get(p);
+			if (a != null)
+				return a;
+		}
+		return read(p);
+	}
+
+	/**
+	 * Returns the entries the index recorded for a directory, or lists them
+	 * anew if the index has not recorded them.
+	 */
+	@Override
+	protected List<java.nio.file.Path> children(java.nio.file.Path n,
+			Index<java.nio.file.Path> i) {
+		if (i instanceof FileIndex) {
+			List<java.nio.file.Path> entries = ((FileIndex) i).entries.get(n);
+			if (entries != null)
+				return entries;
+		}
+		if (!Files.isDirectory(n, noFollow))
+			return Collections.emptyList();
+		try {
+			return Collections.unmodifiableList(list(n));
+		} catch (IOException e) {
+			throw new PathException("could not list " + n, e);
+		}
+	}
+
+	@Override
+	protected boolean hasTag(java.nio.file.Path n, String tag) {
+		return tag.equals(tag(n));
+	}
+
+	@Override
+	protected String tag(java.nio.file.Path n) {
+		java.nio.file.Path name = n.getFileName();
+		return name == null ? null : name.toString();
+	}
+
+	@Override
+	protected boolean matchesTag(java.nio.file.Path n, Pattern p) {
+		String tag = tag(n);
+		return tag != null && p.matcher(tag).find();
+	}
+
+	/**
+	 * Returns the directory the index recorded as holding n, which is the
+	 * same object as the one among whose children n is found. The root of the
+	 * index has no parent.
+	 */
+	@Override
+	protected java.nio.file.Path parent(java.nio.file.Path n,
+			Index<java.nio.file.Path> i) {
+		if (i.isRoot(n))
+			return null;
+		if (i instanceof FileIndex) {
+			java.nio.file.Path parent = ((FileIndex) i).parents.get(n);
+			if (parent != null)
+				return parent;
+		}
+		return n.getParent();
+	}
+
+	/**
+	 * Returns the entries an index made by this forester skipped because they
+	 * could not be read, or vanished, as it walked the file system, and the
+	 * directories it could not list. The index is built if it has not been.
+	 *
+	 * @param i
+	 *            an index made by this forester
+	 * @return the paths skipped
+	 */
+	public Set<java.nio.file.Path> skipped(Index<java.nio.file.Path> i) {
+		if (!(i instanceof FileIndex))
+			throw new PathException("not an index made by a FileForester");
+		i.index();
+		return Collections.unmodifiableSet(((FileIndex) i).skipped);
+	}
+
+	/**
+	 * Produces an index which walks the file system under the root in
+	 * parallel, recording directory entries and file attributes.
+	 */
+	@Override
+	public Index<java.nio.file.Path> index(java.nio.file.Path root) {
+		return new FileIndex(root, this);
+	}
+
+	/**
+	 * Note that this shadows {@link Forester}'s {@code @size}, which counts the
+	 * nodes a path selects.
+	 *
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index
+	 * @return the size of the file in bytes
+	 */
+	@Attribute(description = "the size of the file in bytes")
+	public long size(java.nio.file.Path n, Collection<java.nio.file.Path> c,
+			Index<java.nio.file.Path> i) {
+		return attributes(n, i).size();
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index
+	 * @return the time the file was last modified, in milliseconds since the
+	 *         epoch
+	 */
+	@Attribute(description = "the time the file was last modified in milliseconds")
+	public long mtime(java.nio.file.Path n, Collection<java.nio.file.Path> c,
+			Index<java.nio.file.Path> i) {
+		return attributes(n, i).lastModifiedTime().toMillis();
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index
+	 * @return whether the file is a directory
+	 */
+	@Attribute(description = "whether the file is a directory")
+	public boolean dir(java.nio.file.Path n, Collection<java.nio.file.Path> c,
+			Index<java.nio.file.Path> i) {
+		return attributes(n, i).isDirectory();
+	}
+
+	/**
+	 * An {@link Index} that, before walking the tree, reads it in parallel.
+	 * The walk itself then finds every directory's entries in memory.
+	 */
+	private static class FileIndex extends Index<java.nio.file.Path> {
+		/**
+		 * The entries of each directory under the root.
+		 */
+		final ConcurrentMap<java.nio.file.Path, List<java.nio.file.Path>> entries = new ConcurrentHashMap<java.nio.file.Path, List<java.nio.file.Path>>();
+		/**
+		 * The attributes of each file under the root, and of the root.
+		 */
+		final ConcurrentMap<java.nio.file.Path, BasicFileAttributes> attributes = new ConcurrentHashMap<java.nio.file.Path, BasicFileAttributes>();
+		/**
+		 * The directory holding each file under the root, as it occurs among
+		 * its parent's entries, or the root itself.
+		 */
+		final ConcurrentMap<java.nio.file.Path, java.nio.file.Path> parents = new ConcurrentHashMap<java.nio.file.Path, java.nio.file.Path>();
+		/**
+		 * The entries that could not be read and the directories that could
+		 * not be listed.
+		 */
+		final Set<java.nio.file.Path> skipped = Collections
+				.newSetFromMap(new ConcurrentHashMap<java.nio.file.Path, Boolean>());
+		private final int parallelism;
+
+		FileIndex(java.nio.file.Path root, FileForester f) {
+			super(root, f);
+			parallelism = f.parallelism;
+		}
+
+		@Override
+		protected void walk(java.nio.file.Path n) {
+			if (isRoot(n))
+				scan();
+			super.walk(n);
+		}
+
+		/**
+		 * Reads the tree on a pool of {@link #parallelism} threads.
+		 */
+		private void scan() {
+			BasicFileAttributes a = read(root);
+			attributes.put(root, a);
+			if (!a.isDirectory())
+				return;
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new Scan(root));
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		/**
+		 * Reads a directory and forks a task for each directory in it.
+		 */
+		private class Scan extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+			private final java.nio.file.Path dir;
+
+			Scan(java.nio.file.Path dir) {
+				this.dir = dir;
+			}
+
+			@Override
+			protected void compute() {
+				List<java.nio.file.Path> list;
+				try {
+					list = list(dir);
+				} catch (IOException e) {
+					skipped.add(dir);
+					list = Collections.emptyList();
+				}
+				List<java.nio.file.Path> readable = new ArrayList<java.nio.file.Path>(
+						list.size());
+				List<Scan> subdirectories = new ArrayList<Scan>();
+				for (java.nio.file.Path p : list) {
+					BasicFileAttributes a;
+					try {
+						a = Files.readAttributes(p, BasicFileAttributes.class,
+								noFollow);
+					} catch (IOException e) {
+						skipped.add(p);
+						continue;
+					}
+					readable.add(p);
+					attributes.put(p, a);
+					parents.put(p, dir);
+					if (a.isDirectory())
+						subdirectories.add(new Scan(p));
+				}
+				entries.put(dir, Collections.unmodifiableList(readable));
+				invokeAll(subdirectories);
+			}
+		}
+	}
+}
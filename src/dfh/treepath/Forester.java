@@ -13,17 +13,22 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import dfh.grammar.GrammarException;
@@ -52,15 +57,27 @@ public abstract class Forester<N> implements Serializable {
 	/**
 	 * A cache retaining the mappings from varieties of {@link Forester} to the
 	 * attributes they can handle. This is used to accelerate construction by
-	 * caching the results of reflective code.
+	 * caching the results of reflective code. The maps it holds are
+	 * unmodifiable, and it is read without locking.
 	 */
-	protected final static Map<Class<? extends Forester<?>>, Map<String, InstanceWrapper>> attributeCache = new HashMap<Class<? extends Forester<?>>, Map<String, InstanceWrapper>>();
-	protected transient Map<String, InstanceWrapper> attributes;
+	protected final static ConcurrentMap<Class<? extends Forester<?>>, Map<String, InstanceWrapper>> attributeCache = new ConcurrentHashMap<Class<? extends Forester<?>>, Map<String, InstanceWrapper>>();
+	/**
+	 * The attributes this forester can handle. This map is never modified in
+	 * place; {@link #mixin(Class...)} replaces it with an extended copy.
+	 */
+	protected transient volatile Map<String, InstanceWrapper> attributes;
 	final NodeTest<N>[] ignore;
 	/**
 	 * A place for the log attribute to send its logging.
 	 */
 	transient private PrintStream loggingStream = System.err;
+	/**
+	 * The paths compiled so far, by expression, while {@link #path(String)}
+	 * compiles an expression on the current thread. Identical relative paths
+	 * within the expression are compiled to the same {@link Path}, whose
+	 * results a query can then share.
+	 */
+	private static final ThreadLocal<Map<String, Path<?>>> subpaths = new ThreadLocal<Map<String, Path<?>>>();
 
 	/**
 	 * Initializes the map from attributes to methods and records the node types
@@ -93,67 +110,156 @@ public abstract class Forester<N> implements Serializable {
 
 	/**
 	 * Returns attributes handled, checking {@link #attributeCache} before
-	 * discovering them by reflection.
+	 * discovering them by reflection. No lock is taken; if two threads discover
+	 * the attributes of the same class at once, the first to finish wins and
+	 * the other adopts its map.
 	 * 
 	 * @return attributes handled by forester
 	 */
 	@SuppressWarnings("unchecked")
 	protected final Map<String, InstanceWrapper> getAttributes() {
-		synchronized (attributeCache) {
-			Map<String, InstanceWrapper> map = attributeCache.get(this
-					.getClass());
-			if (map == null) {
-				map = new HashMap<String, InstanceWrapper>();
-				Class<?> icl = null;
-				try {
-					icl = Class.forName("java.util.Collection");
-				} catch (ClassNotFoundException e) {
-					throw new PathException(e);
-				}
-				Class<?> cz = getClass();
-				while (Forester.class.isAssignableFrom(cz)) {
-					for (Method m : cz.getDeclaredMethods()) {
-						int mods = m.getModifiers();
-						if (!Modifier.isPrivate(mods)) {
-							Attribute a = m.getAnnotation(Attribute.class);
-							if (a != null) {
-								String name = a.value();
-								if (name.length() == 0)
-									name = m.getName();
-								if (map.containsKey(name))
-									continue;
-								Class<?>[] pts = m.getParameterTypes();
-								if (pts.length < 3)
-									throw new PathException(
-											"ill-formed attribute @"
-													+ name
-													+ "; every attribute must have at least a node, collection, and index parameter");
-								if (!icl.isAssignableFrom(pts[1]))
-									throw new PathException(
-											"the second parameter for attribute @"
-													+ name
-													+ " must represent the collection of nodes of which the context node is a member");
-								if (!Index.class.isAssignableFrom(pts[2]))
-									throw new PathException(
-											"the third parameter for attribute @"
-													+ name
-													+ " must be an instance of dfh.treepath.Index");
-								if (m.getReturnType() == Void.TYPE)
-									throw new PathException("attribute @"
+		Class<? extends Forester<?>> key = (Class<? extends Forester<?>>) getClass();
+		Map<String, InstanceWrapper> map = attributeCache.get(key);
+		if (map == null) {
+			map = Collections.unmodifiableMap(discoverAttributes());
+			Map<String, InstanceWrapper> prior = attributeCache.putIfAbsent(
+					key, map);
+			if (prior != null)
+				map = prior;
+		}
+		return map;
+	}
+
+	/**
+	 * Finds the attributes of this forester's class by reflection.
+	 * 
+	 * @return a fresh map from attribute names to methods
+	 */
+	private Map<String, InstanceWrapper> discoverAttributes() {
+		Map<String, InstanceWrapper> map = new HashMap<String, InstanceWrapper>();
+		Map<String, Method> batches = new HashMap<String, Method>();
+		Map<String, Method> views = new HashMap<String, Method>();
+		Class<?> icl = Collection.class;
+		Class<?> cz = getClass();
+		while (Forester.class.isAssignableFrom(cz)) {
+			for (Method m : cz.getDeclaredMethods()) {
+				int mods = m.getModifiers();
+				if (!Modifier.isPrivate(mods)) {
+					Attribute a = m.getAnnotation(Attribute.class);
+					if (a != null) {
+						String name = a.value();
+						if (name.length() == 0)
+							name = m.getName();
+						if (map.containsKey(name))
+							continue;
+						Class<?>[] pts = m.getParameterTypes();
+						if (pts.length < 3)
+							throw new PathException(
+									"ill-formed attribute @"
+											+ name
+											+ "; every attribute must have at least a node, collection, and index parameter");
+						if (!icl.isAssignableFrom(pts[1]))
+							throw new PathException(
+									"the second parameter for attribute @"
 											+ name
-											+ " does not return any value");
-								m.setAccessible(true);
-								map.put(name, wrapMethod(m));
-							}
-						}
+											+ " must represent the collection of nodes of which the context node is a member");
+						if (!Index.class.isAssignableFrom(pts[2]))
+							throw new PathException(
+									"the third parameter for attribute @"
+											+ name
+											+ " must be an instance of dfh.treepath.Index");
+						if (m.getReturnType() == Void.TYPE)
+							throw new PathException("attribute @" + name
+									+ " does not return any value");
+						m.setAccessible(true);
+						map.put(name, wrapMethod(m));
 					}
-					cz = cz.getSuperclass();
+					BatchAttribute b = m.getAnnotation(BatchAttribute.class);
+					if (b != null && !batches.containsKey(b.value()))
+						batches.put(b.value(), m);
+					ViewAttribute v = m.getAnnotation(ViewAttribute.class);
+					if (v != null && !views.containsKey(v.value()))
+						views.put(v.value(), m);
 				}
-				attributeCache.put(
-						(Class<? extends Forester<?>>) this.getClass(), map);
 			}
-			return map;
+			cz = cz.getSuperclass();
+		}
+		for (Entry<String, Method> e : batches.entrySet()) {
+			String name = e.getKey();
+			InstanceWrapper w = map.get(name);
+			if (w == null)
+				throw new PathException("batch attribute @" + name
+						+ " has no corresponding attribute");
+			// a batch method is bound to the attribute method it was written
+			// beside; an override of the attribute does not inherit it
+			if (w.method().getDeclaringClass() == e.getValue()
+					.getDeclaringClass())
+				w.batch(checkBatch(name, w.method(), e.getValue()));
+		}
+		for (Entry<String, Method> e : views.entrySet()) {
+			InstanceWrapper w = map.get(e.getKey());
+			if (w == null)
+				throw new PathException("view attribute @" + e.getKey()
+						+ " has no corresponding attribute");
+			Method m = w.method(), v = e.getValue();
+			// a view stands in for the attribute method only where the
+			// attribute method is the one it was written beside
+			if (m.getDeclaringClass() == v.getDeclaringClass()
+					&& !overridden(m)) {
+				v.setAccessible(true);
+				w.view(v);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @param m
+	 *            a method of this forester's class or one of its ancestors
+	 * @return whether some class below the one declaring m overrides it
+	 */
+	private boolean overridden(Method m) {
+		for (Class<?> cz = getClass(); cz != m.getDeclaringClass(); cz = cz
+				.getSuperclass()) {
+			try {
+				cz.getDeclaredMethod(m.getName(), m.getParameterTypes());
+				return true;
+			} catch (NoSuchMethodException e) {
+			}
 		}
+		return false;
+	}
+
+	/**
+	 * Makes sure a {@link BatchAttribute} method fits the attribute it
+	 * evaluates.
+	 * 
+	 * @param name
+	 *            attribute name
+	 * @param m
+	 *            attribute method
+	 * @param b
+	 *            batch method
+	 * @return b
+	 */
+	private static Method checkBatch(String name, Method m, Method b) {
+		Class<?>[] pts = b.getParameterTypes(), apts = m.getParameterTypes();
+		if (pts.length != apts.length
+				|| !pts[0].isAssignableFrom(List.class)
+				|| !Index.class.isAssignableFrom(pts[1])
+				|| !CompiledAttribute.isColumn(pts[2])
+				|| b.isVarArgs() != m.isVarArgs()
+				|| !Arrays.equals(Arrays.copyOfRange(pts, 3, pts.length),
+						Arrays.copyOfRange(apts, 3, apts.length)))
+			throw new PathException(
+					"ill-formed batch attribute @"
+							+ name
+							+ "; a batch attribute must have a list, index, and column parameter followed by the other parameters of its attribute");
+		if (b.getReturnType() != Void.TYPE)
+			throw new PathException("batch attribute @" + name
+					+ " must not return a value");
+		b.setAccessible(true);
+		return b;
 	}
 
 	/**
@@ -242,6 +348,8 @@ public abstract class Forester<N> implements Serializable {
 			}
 			return Collections.emptyList();
 		case parent:
+			if (i.isRoot(n))
+				return Collections.emptyList();
 			N parent = parent(n, i);
 			if (t.passes(parent, i)) {
 				list = new ArrayList<N>(1);
@@ -255,6 +363,199 @@ public abstract class Forester<N> implements Serializable {
 		}
 	}
 
+	/**
+	 * Like {@link #axis(Object, Axis, NodeTest, Index)}, but only the node at a
+	 * particular position among those found is wanted. If the position is
+	 * non-negative the collection returned need contain only the nodes up to
+	 * and including that position; if it is negative, only the corresponding
+	 * number of nodes from the end. If fewer nodes are on the axis, all are
+	 * returned. This lets the search for {@code following-sibling::*[0]} or
+	 * {@code //foo[-1]} stop once the node wanted is found. Axes that cannot
+	 * stop early are collected in full.
+	 * 
+	 * @param n
+	 *            context node relative to which the axis will be examined
+	 * @param a
+	 *            axis to walk
+	 * @param t
+	 *            node test to locate desired nodes on the specified axis
+	 * @param i
+	 *            tree index
+	 * @param position
+	 *            the index of the node wanted, as in {@code [-1]}
+	 * @return a prefix or suffix, as appropriate, of those nodes on the given
+	 *         axis that pass the test
+	 */
+	@SuppressWarnings("unchecked")
+	protected Collection<N> axis(N n, Axis a, NodeTest<N> t, Index<N> i,
+			int position) {
+		List<N> found;
+		switch (a) {
+		case child:
+			return pick(kids(n, i), t, i, position);
+		case siblingOrSelf:
+			if (i.isRoot(n))
+				break;
+			return pick(kids(parent(n, i), i), t, i, position);
+		case followingSibling:
+		case precedingSibling:
+			if (i.isRoot(n))
+				break;
+			List<N> siblings = kids(parent(n, i), i);
+			int k = i.siblingPosition(n, siblings);
+			if (k == -1)
+				break;
+			return pick(a == Axis.followingSibling ? siblings.subList(k + 1,
+					siblings.size()) : siblings.subList(0, k), t, i, position);
+		case descendant:
+		case descendantOrSelf:
+			found = new ArrayList<N>();
+			if (position < 0) {
+				if (a == Axis.descendantOrSelf && t.passes(n, i))
+					found.add(n);
+				if (found.size() < -position)
+					lastDescendants(n, t, i, -position, found);
+				Collections.reverse(found);
+			} else if (!descendants(n, t, i, position + 1, found)
+					&& a == Axis.descendantOrSelf && t.passes(n, i))
+				found.add(n);
+			return found;
+		case preceding:
+			if (i.isRoot(n) || !i.numbered())
+				break;
+			k = i.postorderNumber(n);
+			if (k == -1)
+				break;
+			found = new ArrayList<N>();
+			int end = i.subtreeStart(k);
+			if (position < 0) {
+				for (int j = end - 1; j >= 0 && found.size() < -position; j--) {
+					N o = i.postorderNode(j);
+					if (t.passes(o, i))
+						found.add(o);
+				}
+				Collections.reverse(found);
+			} else {
+				for (int j = 0; j < end && found.size() <= position; j++) {
+					N o = i.postorderNode(j);
+					if (t.passes(o, i))
+						found.add(o);
+				}
+			}
+			return found;
+		default:
+			break;
+		}
+		return axis(n, a, t, i);
+	}
+
+	/**
+	 * Picks out the nodes of a list passing a test which are required to
+	 * determine the node at a given position among them.
+	 * 
+	 * @param list
+	 *            candidate nodes
+	 * @param t
+	 *            node test
+	 * @param i
+	 *            tree index
+	 * @param position
+	 *            position of interest, as in
+	 *            {@link #axis(Object, Axis, NodeTest, Index, int)}
+	 * @return the leading or trailing nodes passing the test
+	 */
+	private List<N> pick(List<N> list, NodeTest<N> t, Index<N> i, int position) {
+		List<N> picked = new ArrayList<N>();
+		if (position < 0) {
+			for (ListIterator<N> li = list.listIterator(list.size()); li
+					.hasPrevious();) {
+				N o = li.previous();
+				if (t.passes(o, i)) {
+					picked.add(o);
+					if (picked.size() == -position)
+						break;
+				}
+			}
+			Collections.reverse(picked);
+		} else {
+			for (N o : list) {
+				if (t.passes(o, i)) {
+					picked.add(o);
+					if (picked.size() > position)
+						break;
+				}
+			}
+		}
+		return picked;
+	}
+
+	/**
+	 * Collects descendants in the order of
+	 * {@link #descendants(Object, NodeTest, Index)} until enough are found.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param t
+	 *            node types of interest
+	 * @param i
+	 *            tree index
+	 * @param wanted
+	 *            the number of nodes wanted
+	 * @param found
+	 *            the nodes found so far
+	 * @return whether enough nodes have been found
+	 */
+	private boolean descendants(N n, NodeTest<N> t, Index<N> i, int wanted,
+			List<N> found) {
+		for (N child : kids(n, i)) {
+			if (i.excludes(child, t))
+				continue;
+			if (descendants(child, t, i, wanted, found))
+				return true;
+			if (t.passes(child, i)) {
+				found.add(child);
+				if (found.size() == wanted)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Collects descendants in the reverse of the order of
+	 * {@link #descendants(Object, NodeTest, Index)} until enough are found.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param t
+	 *            node types of interest
+	 * @param i
+	 *            tree index
+	 * @param wanted
+	 *            the number of nodes wanted
+	 * @param found
+	 *            the nodes found so far
+	 * @return whether enough nodes have been found
+	 */
+	private boolean lastDescendants(N n, NodeTest<N> t, Index<N> i,
+			int wanted, List<N> found) {
+		List<N> children = kids(n, i);
+		for (ListIterator<N> li = children.listIterator(children.size()); li
+				.hasPrevious();) {
+			N child = li.previous();
+			if (i.excludes(child, t))
+				continue;
+			if (t.passes(child, i)) {
+				found.add(child);
+				if (found.size() == wanted)
+					return true;
+			}
+			if (lastDescendants(child, t, i, wanted, found))
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Implements the siblings axis.
 	 * 
@@ -267,14 +568,7 @@ public abstract class Forester<N> implements Serializable {
 	 * @return siblings of context node
 	 */
 	protected Collection<N> siblings(N n, NodeTest<N> t, Index<N> i) {
-		List<N> siblings = siblings(parent(n, i), i);
-		if (siblings.isEmpty())
-			return siblings;
-		List<N> list = new ArrayList<N>(siblings.size());
-		for (N s : siblings)
-			if (t.passes(s, i))
-				list.add(s);
-		return list;
+		return filter(siblings(n, i), t, i);
 	}
 
 	/**
@@ -357,7 +651,15 @@ public abstract class Forester<N> implements Serializable {
 				throw new PathException(b.toString());
 			}
 			init();
-			return path(n);
+			boolean outer = subpaths.get() == null;
+			if (outer)
+				subpaths.set(new HashMap<String, Path<?>>());
+			try {
+				return path(n);
+			} finally {
+				if (outer)
+					subpaths.remove();
+			}
 		} catch (GrammarException e) {
 			throw new PathException("failed to compile path " + path, e);
 		}
@@ -369,14 +671,21 @@ public abstract class Forester<N> implements Serializable {
 	 * @param n
 	 * @return relative path
 	 */
+	@SuppressWarnings("unchecked")
 	final Path<N> path(Match n) {
+		Map<String, Path<?>> shared = subpaths.get();
+		String key = n.group();
+		if (shared != null && shared.containsKey(key))
+			return (Path<N>) shared.get(key);
 		List<Match> paths = n.closest(pathMt);
-		@SuppressWarnings("unchecked")
 		Selector<N>[][] selectors = new Selector[paths.size()][];
 		for (int i = 0; i < selectors.length; i++) {
 			selectors[i] = makePath(paths.get(i));
 		}
-		return new Path<N>(this, selectors);
+		Path<N> p = new Path<N>(this, selectors);
+		if (shared != null)
+			shared.put(key, p);
+		return p;
 	}
 
 	private static final MatchTest segmentMT = new MatchTest() {
@@ -566,7 +875,7 @@ public abstract class Forester<N> implements Serializable {
 	 *            tree index
 	 * @return whether n is a leaf
 	 */
-	@Attribute(value = "leaf", description = "whether the context node is a leaf")
+	@Attribute(value = "leaf", description = "whether the context node is a leaf", local = false)
 	protected boolean isLeaf(N n, Collection<N> c, Index<N> i) {
 		List<N> children = kids(n, i);
 		if (children.isEmpty())
@@ -651,7 +960,7 @@ public abstract class Forester<N> implements Serializable {
 	 *            a candidate node set selected by a path
 	 * @return the number of nodes selected by the path
 	 */
-	@Attribute(description = "the size in nodes of the tree rooted at node")
+	@Attribute(description = "the size in nodes of the tree rooted at node", local = false)
 	protected int tsize(N n, Collection<N> c, Index<N> i) {
 		int size = 1;
 		for (N child : children(n, i))
@@ -674,7 +983,7 @@ public abstract class Forester<N> implements Serializable {
 	 *            a candidate node set selected by a path
 	 * @return the number of nodes selected by the path
 	 */
-	@Attribute(description = "the number of leaves under node; 1 if node is a leaf")
+	@Attribute(description = "the number of leaves under node; 1 if node is a leaf", local = false)
 	protected int width(N n, Collection<N> c, Index<N> i) {
 		if (isLeaf(n, c, i))
 			return 1;
@@ -684,7 +993,7 @@ public abstract class Forester<N> implements Serializable {
 		return width;
 	}
 
-	@Attribute(description = "the number of steps between node and root")
+	@Attribute(description = "the number of steps between node and root", local = false)
 	protected int depth(N n, Collection<N> c, Index<N> i) {
 		if (isRoot(n, c, i))
 			return 0;
@@ -696,7 +1005,7 @@ public abstract class Forester<N> implements Serializable {
 		return depth;
 	}
 
-	@Attribute(description = "the longest path between node and a leaf; 1 if node is a leaf")
+	@Attribute(description = "the longest path between node and a leaf; 1 if node is a leaf", local = false)
 	protected int height(N n, Collection<N> c, Index<N> i) {
 		if (isLeaf(n, c, i))
 			return 1;
@@ -719,7 +1028,7 @@ public abstract class Forester<N> implements Serializable {
 	 *            tree index
 	 * @return whether n is the tree root
 	 */
-	@Attribute(value = "root", description = "whether the node is root")
+	@Attribute(value = "root", description = "whether the node is root", local = false)
 	protected boolean isRoot(N n, Collection<N> c, Index<N> i) {
 		return i.isRoot(n);
 	}
@@ -730,7 +1039,7 @@ public abstract class Forester<N> implements Serializable {
 	 * @param i
 	 * @return the identifying string, if any, of this node
 	 */
-	@Attribute(description = "the nodes string id, if any")
+	@Attribute(description = "the nodes string id, if any", local = false)
 	protected String id(N n, Collection<N> c, Index<N> i) {
 		return i.id(n);
 	}
@@ -856,11 +1165,18 @@ public abstract class Forester<N> implements Serializable {
 	 * @return descendants of context node
 	 */
 	protected Collection<N> descendants(N n, NodeTest<N> t, Index<N> i) {
+		if (i.excludes(n, t))
+			return Collections.emptyList();
+		List<N> posted = i.postedDescendants(n, t, false);
+		if (posted != null)
+			return posted;
 		List<N> children = kids(n, i);
 		if (children.isEmpty())
 			return children;
 		List<N> descendants = new LinkedList<N>();
 		for (N child : children) {
+			if (i.excludes(child, t))
+				continue;
 			if (!isLeaf(child, null, i))
 				descendants.addAll(descendants(child, t, i));
 			if (t.passes(child, i))
@@ -881,6 +1197,8 @@ public abstract class Forester<N> implements Serializable {
 	 * @return nearest nodes of interest dominated by the context node
 	 */
 	protected Collection<N> closest(N n, NodeTest<N> t, Index<N> i) {
+		if (i.excludes(n, t))
+			return Collections.emptyList();
 		if (t.passes(n, i)) {
 			List<N> list = new ArrayList<N>(1);
 			list.add(n);
@@ -910,16 +1228,10 @@ public abstract class Forester<N> implements Serializable {
 		if (isRoot(n, null, i))
 			return Collections.emptyList();
 		List<N> siblings = kids(parent(n, i), i);
-		if (siblings.size() == 1)
+		int k = i.siblingPosition(n, siblings);
+		if (k < 1)
 			return Collections.emptyList();
-		List<N> precedingSiblings = new ArrayList<N>(siblings.size() - 1);
-		for (N sib : siblings) {
-			if (sib == n)
-				break;
-			if (t.passes(sib, i))
-				precedingSiblings.add(sib);
-		}
-		return precedingSiblings;
+		return filter(siblings.subList(0, k), t, i);
 	}
 
 	/**
@@ -937,11 +1249,12 @@ public abstract class Forester<N> implements Serializable {
 		List<N> siblings = kids(parent(n, i), i);
 		if (siblings.size() == 1)
 			return Collections.emptyList();
+		int k = i.siblingPosition(n, siblings);
+		if (k == -1)
+			return Collections.unmodifiableList(siblings);
 		List<N> sibs = new ArrayList<N>(siblings.size() - 1);
-		for (N s : siblings) {
-			if (s != n)
-				sibs.add(s);
-		}
+		sibs.addAll(siblings.subList(0, k));
+		sibs.addAll(siblings.subList(k + 1, siblings.size()));
 		return sibs;
 	}
 
@@ -960,21 +1273,37 @@ public abstract class Forester<N> implements Serializable {
 		if (isRoot(n, null, i))
 			return Collections.emptyList();
 		List<N> siblings = kids(parent(n, i), i);
-		if (siblings.size() == 1)
+		int k = i.siblingPosition(n, siblings);
+		if (k == -1 || k == siblings.size() - 1)
 			return Collections.emptyList();
-		List<N> followingSiblings = new ArrayList<N>(siblings.size() - 1);
-		boolean add = false;
-		for (N sib : siblings) {
-			if (add && t.passes(sib, i))
-				followingSiblings.add(sib);
-			else
-				add = sib == n;
-		}
-		return followingSiblings;
+		return filter(siblings.subList(k + 1, siblings.size()), t, i);
 	}
 
 	/**
-	 * Implements preceding axis.
+	 * Selects the nodes in a list that pass a test. If all nodes pass, this is
+	 * a read-only view of the list rather than a copy.
+	 * 
+	 * @param list
+	 *            candidate nodes
+	 * @param t
+	 *            node types of interest
+	 * @param i
+	 *            tree index
+	 * @return those nodes in list that pass t
+	 */
+	private List<N> filter(List<N> list, NodeTest<N> t, Index<N> i) {
+		if (t instanceof TrueTest<?>)
+			return Collections.unmodifiableList(list);
+		List<N> filtrate = new ArrayList<N>(list.size());
+		for (N n : list)
+			if (t.passes(n, i))
+				filtrate.add(n);
+		return filtrate;
+	}
+
+	/**
+	 * Implements preceding axis. If the index has numbered the nodes this is a scan
+	 * of ranges of the numbering; see {@link Index#numberNodes()}.
 	 * 
 	 * @param n
 	 *            context node
@@ -988,6 +1317,19 @@ public abstract class Forester<N> implements Serializable {
 	protected Collection<N> preceding(N n, NodeTest<N> t, Index<N> i) {
 		if (isRoot(n, null, i))
 			return Collections.emptyList();
+		if (i.numbered()) {
+			int k = i.postorderNumber(n);
+			if (k > -1) {
+				// everything numbered before n's subtree precedes it
+				List<N> preceding = new ArrayList<N>();
+				for (int j = 0, lim = i.subtreeStart(k); j < lim; j++) {
+					N p = i.postorderNode(j);
+					if (t.passes(p, i))
+						preceding.add(p);
+				}
+				return preceding;
+			}
+		}
 		Collection<N> preceding = new LinkedList<N>();
 		Collections.emptyList();
 		List<N> ancestors = ancestors(n, (NodeTest<N>) TrueTest.test(), i);
@@ -1007,7 +1349,8 @@ public abstract class Forester<N> implements Serializable {
 	}
 
 	/**
-	 * Implements following axis.
+	 * Implements following axis. If the index has numbered the nodes this is a scan
+	 * of ranges of the numbering; see {@link Index#numberNodes()}.
 	 * 
 	 * @param n
 	 *            context node
@@ -1021,6 +1364,26 @@ public abstract class Forester<N> implements Serializable {
 	protected Collection<N> following(N n, NodeTest<N> t, Index<N> i) {
 		if (isRoot(n, null, i))
 			return Collections.emptyList();
+		if (i.numbered() && i.postorderNumber(n) > -1) {
+			// the following siblings of each ancestor, and their descendants,
+			// are numbered between the ancestor and its parent; they are
+			// collected from the uppermost ancestor down, as below
+			List<N> following = new ArrayList<N>();
+			List<N> ancestors = ancestors(n, (NodeTest<N>) TrueTest.test(), i);
+			ancestors.add(n);
+			Iterator<N> it = ancestors.iterator();
+			int end = i.postorderNumber(it.next());
+			while (it.hasNext()) {
+				int k = i.postorderNumber(it.next());
+				for (int j = k + 1; j < end; j++) {
+					N o = i.postorderNode(j);
+					if (t.passes(o, i))
+						following.add(o);
+				}
+				end = k;
+			}
+			return following;
+		}
 		Collection<N> following = new LinkedList<N>();
 		List<N> ancestors = ancestors(n, (NodeTest<N>) TrueTest.test(), i);
 		for (N a : ancestors.subList(1, ancestors.size())) {
@@ -1044,17 +1407,11 @@ public abstract class Forester<N> implements Serializable {
 	 * @param n
 	 * @return index of n in its context collection; -1 if n is root
 	 */
-	@Attribute(description = "the index of the context node in the context collection")
+	@Attribute(description = "the index of the context node in the context collection", local = false)
 	protected int index(N n, Collection<N> c, Index<N> in) {
 		if (isRoot(n, null, in))
 			return -1;
-		List<N> siblings = kids(parent(n, in), in);
-		for (int i = 0, lim = siblings.size(); i < lim; i++) {
-			N o = siblings.get(i);
-			if (o == n)
-				return i;
-		}
-		return -1;
+		return in.siblingPosition(n, kids(parent(n, in), in));
 	}
 
 	/**
@@ -1071,7 +1428,8 @@ public abstract class Forester<N> implements Serializable {
 
 	/**
 	 * Like {@link #children(Object, Index)}, but it tests the nodes against the
-	 * node tests in {@link #ignore}.
+	 * node tests in {@link #ignore}, unless the index has already recorded the
+	 * result; see {@link Index#kids(Object)}.
 	 * 
 	 * @param n
 	 *            context node
@@ -1080,6 +1438,15 @@ public abstract class Forester<N> implements Serializable {
 	 * @return children remaining after dropping those to be ignored
 	 */
 	protected final List<N> kids(N n, Index<N> i) {
+		List<N> kids = findKids(n, i);
+		i.found(n, kids);
+		return kids;
+	}
+
+	private List<N> findKids(N n, Index<N> i) {
+		List<N> recorded = i.kids(n);
+		if (recorded != null)
+			return recorded;
 		List<N> children = children(n, i);
 		if (children == null)
 			return Collections.emptyList();
@@ -1095,6 +1462,21 @@ public abstract class Forester<N> implements Serializable {
 		return kids;
 	}
 
+	/**
+	 * Returns the tag of a node, if it has exactly one, for the tag summaries
+	 * of an {@link Index} that {@link Index#summarizeTags() summarizes tags}.
+	 * If this returns {@code t}, {@link #hasTag(Object, String)} must be false
+	 * for the node and any tag other than {@code t}. Unless overridden this
+	 * method returns null, meaning the node may bear any tag.
+	 * 
+	 * @param n
+	 *            context node
+	 * @return the node's tag, or null if it is unknown
+	 */
+	protected String tag(N n) {
+		return null;
+	}
+
 	/**
 	 * Defines what it means for a node in this tree to have a particular tag --
 	 * the "b" in the path expression "//b".
@@ -1355,30 +1737,81 @@ public abstract class Forester<N> implements Serializable {
 	 *            tree index
 	 * @return {@code true}
 	 */
-	@Attribute(description = "unique id of context node representing its position in its tree")
+	@Attribute(description = "unique id of context node representing its position in its tree", local = false)
 	protected final String uid(N n, Collection<N> c, Index<N> i) {
-		List<Integer> list = new ArrayList<Integer>();
-		N node = n;
-		while (node != i.root) {
-			N parent = i.f.parent(node, i);
-			List<N> children = i.f.children(parent, i);
-			for (int in = 0, lim = children.size(); in < lim; in++) {
-				N child = children.get(in);
-				if (child == node) {
-					list.add(in);
-					break;
-				}
-			}
-			node = parent;
-		}
-		if (list.isEmpty())
+		int[] path = uidPath(n, i);
+		if (path.length == 0)
 			return "/";
 		StringBuilder b = new StringBuilder();
-		for (int in = list.size() - 1; in >= 0; in--)
-			b.append('/').append(list.get(in));
+		for (int in : path)
+			b.append('/').append(in);
 		return b.toString();
 	}
 
+	/**
+	 * Returns the branch indices that make up a node's
+	 * {@link #uid(Object, Collection, Index) uid}. The root's path is empty.
+	 * 
+	 * @param n
+	 *            a node
+	 * @param i
+	 *            tree index
+	 * @return the index of each of n's ancestors, and n, among its parent's
+	 *         children, from the top of the tree down
+	 */
+	public final int[] uidPath(N n, Index<N> i) {
+		int[] path = new int[8];
+		int depth = 0;
+		for (N node = n; node != i.root;) {
+			N parent = i.f.parent(node, i);
+			if (depth == path.length)
+				path = Arrays.copyOf(path, depth * 2);
+			path[depth++] = i.childPosition(node, i.f.children(parent, i));
+			node = parent;
+		}
+		int[] reversed = new int[depth];
+		for (int j = 0; j < depth; j++)
+			reversed[j] = path[depth - j - 1];
+		return reversed;
+	}
+
+	/**
+	 * Obtains the {@link #uid(Object, Collection, Index) uid} of every node in
+	 * a collection, such as the result of a {@link Path}, computing the uid of
+	 * each ancestor they share only once.
+	 * 
+	 * @param nodes
+	 *            nodes to label
+	 * @param i
+	 *            tree index
+	 * @return the uids of the nodes, in the order they are iterated
+	 */
+	public final List<String> uids(Collection<N> nodes, Index<N> i) {
+		Map<N, String> prefixes = new IdentityHashMap<N, String>();
+		prefixes.put(i.root, "");
+		List<String> uids = new ArrayList<String>(nodes.size());
+		List<N> pending = new ArrayList<N>();
+		for (N n : nodes) {
+			N node = n;
+			String prefix;
+			while ((prefix = prefixes.get(node)) == null) {
+				pending.add(node);
+				node = i.f.parent(node, i);
+			}
+			// node is now the nearest ancestor with a known uid
+			for (int k = pending.size() - 1; k >= 0; k--) {
+				N child = pending.get(k);
+				prefix = prefix + '/'
+						+ i.childPosition(child, i.f.children(node, i));
+				prefixes.put(child, prefix);
+				node = child;
+			}
+			pending.clear();
+			uids.add(prefix.length() == 0 ? "/" : prefix);
+		}
+		return uids;
+	}
+
 	/**
 	 * An attribute that turns anything into an attribute, allowing it to be
 	 * used in an attribute test. E.g., {@code //a[@echo(foo//bar) = 3]}.
@@ -1412,20 +1845,24 @@ public abstract class Forester<N> implements Serializable {
 
 	/**
 	 * Mix in attributes from one or more {@link AttributeLibrary libraries}.
+	 * The attributes shared by all foresters of this class are unaffected;
+	 * this forester receives its own extended copy.
 	 * 
 	 * @param mixins
 	 *            libraries to mix in
 	 */
 	public void mixin(Class<? extends AttributeLibrary<N>>... mixins) {
 		init();
+		Map<String, InstanceWrapper> extended = new HashMap<String, InstanceWrapper>(
+				attributes);
 		for (Class<? extends AttributeLibrary<N>> mixin : mixins) {
 			try {
 				AttributeLibrary<N> al = mixin.newInstance();
 				al.init();
 				for (Entry<String, InstanceWrapper> e : al.attributes
 						.entrySet()) {
-					if (!attributes.containsKey(e.getKey()))
-						attributes.put(e.getKey(), e.getValue());
+					if (!extended.containsKey(e.getKey()))
+						extended.put(e.getKey(), e.getValue());
 				}
 			} catch (InstantiationException e) {
 				throw new PathException(
@@ -1437,5 +1874,6 @@ public abstract class Forester<N> implements Serializable {
 								+ mixin, e);
 			}
 		}
+		attributes = Collections.unmodifiableMap(extended);
 	}
 }
@@ -0,0 +1,41 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ * 
+ * Copyright (C) 2012 David F. Houghton
+ * 
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+/**
+ * A {@link Selector} that may select nodes along a forward axis -- the context
+ * node itself, its children, its descendants, or its closest matching
+ * descendants. Such steps can be decided for each node as it is first
+ * encountered in a pass through the tree, which is what
+ * {@link StreamingEvaluator} requires.
+ * <p>
+ * 
+ * @author David F. Houghton - Oct 19, 2026
+ * 
+ * @param <N>
+ */
+interface ForwardSelector<N> extends Selector<N> {
+	/**
+	 * The relation a candidate node bears to the context node.
+	 */
+	enum Relation {
+		self, child, descendant, descendantOrSelf, closest
+	}
+
+	/**
+	 * @return the relation candidates bear to the context node, or
+	 *         {@code null} if the step does not walk a forward axis
+	 */
+	Relation relation();
+
+	/**
+	 * @return the test a node must pass to be a candidate
+	 */
+	NodeTest<N> test();
+}
@@ -45,13 +45,14 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 	 */
 	@SuppressWarnings("unchecked")
 	public FunctionalForester(NodeTest<N>... nodeTest) {
+		super(nodeTest);
 	}
 
 	/**
 	 * Determines whether the pattern matches the entirety of the input string.
-	 * This method calls {@link Pattern#matches(String, CharSequence)}. If you
-	 * have to match a particular pattern often, it is likely more efficient to
-	 * write your own attribute that calls a pre-compiled {@link Pattern}.
+	 * This method calls {@link Pattern#matches(String, CharSequence)}. Where
+	 * the pattern is a literal, the attribute compiles it once, when the path
+	 * is compiled, and calls {@link Matcher#matches()}.
 	 * 
 	 * @param n
 	 *            context node; required for method signature but ignored
@@ -72,6 +73,16 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return Pattern.matches(pattern, s);
 	}
 
+	/**
+	 * Evaluates {@code @s:matches} over text in place, and a pre-compiled
+	 * {@link Pattern}.
+	 */
+	@ViewAttribute("s:matches")
+	boolean matches(N n, Collection<N> c, Index<N> i,
+			CharSequence s, Pattern pattern) {
+		return pattern.matcher(s).matches();
+	}
+
 	/**
 	 * Calls {@link String#startsWith(String)}.
 	 * 
@@ -94,6 +105,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.startsWith(pattern);
 	}
 
+	/**
+	 * Evaluates {@code @s:starts-with} over text in place.
+	 */
+	@ViewAttribute("s:starts-with")
+	boolean startsWith(N n, Collection<N> c, Index<N> i,
+			CharSequence s, String pattern) {
+		return TextView.startsWith(s, pattern);
+	}
+
 	/**
 	 * Calls {@link String#endsWith(String)}.
 	 * 
@@ -116,6 +136,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.endsWith(pattern);
 	}
 
+	/**
+	 * Evaluates {@code @s:ends-with} over text in place.
+	 */
+	@ViewAttribute("s:ends-with")
+	boolean endsWith(N n, Collection<N> c, Index<N> i,
+			CharSequence s, String pattern) {
+		return TextView.endsWith(s, pattern);
+	}
+
 	/**
 	 * Calls {@link String#indexOf(int)} and returns whether the value is
 	 * greater than -1.
@@ -139,6 +168,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.indexOf(pattern) > -1;
 	}
 
+	/**
+	 * Evaluates {@code @s:contains} over text in place.
+	 */
+	@ViewAttribute("s:contains")
+	boolean contains(N n, Collection<N> c, Index<N> i,
+			CharSequence s, String pattern) {
+		return TextView.indexOf(s, pattern) > -1;
+	}
+
 	/**
 	 * Calls {@link String#indexOf(String)}.
 	 * 
@@ -161,6 +199,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.indexOf(pattern);
 	}
 
+	/**
+	 * Evaluates {@code @s:index} over text in place.
+	 */
+	@ViewAttribute("s:index")
+	int index(N n, Collection<N> c, Index<N> i, CharSequence s,
+			String pattern) {
+		return TextView.indexOf(s, pattern);
+	}
+
 	/**
 	 * Joins together the stringifications of a list of items in a new string.
 	 * 
@@ -322,6 +369,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.replaceFirst(pattern, replacement);
 	}
 
+	/**
+	 * Evaluates {@code @s:replace-first} over a pre-compiled {@link Pattern}.
+	 */
+	@ViewAttribute("s:replace-first")
+	String replaceFirst(N n, Collection<N> c, Index<N> i, String s,
+			Pattern pattern, String replacement) {
+		return pattern.matcher(s).replaceFirst(replacement);
+	}
+
 	/**
 	 * Calls {@link String#replaceAll(String, String)}
 	 * 
@@ -344,6 +400,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.replaceAll(pattern, replacement);
 	}
 
+	/**
+	 * Evaluates {@code @s:replace-all} over a pre-compiled {@link Pattern}.
+	 */
+	@ViewAttribute("s:replace-all")
+	String replaceAll(N n, Collection<N> c, Index<N> i, String s,
+			Pattern pattern, String replacement) {
+		return pattern.matcher(s).replaceAll(replacement);
+	}
+
 	/**
 	 * Calls {@link String#replace(String, String)}. This is more efficient than
 	 * {@link #replaceAll(Object, Collection, Index, String, String, String)}
@@ -390,6 +455,15 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s1.compareTo(s2);
 	}
 
+	/**
+	 * Evaluates {@code @s:cmp} over text in place.
+	 */
+	@ViewAttribute("s:cmp")
+	Integer compare(N n, Collection<N> c, Index<N> i,
+			CharSequence s1, CharSequence s2) {
+		return TextView.compare(s1, s2);
+	}
+
 	/**
 	 * Calls {@link String#substring(int, int)} or {@link String#substring(int)}
 	 * , depending on how many integer parameters are provided.
@@ -443,6 +517,14 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return s.length();
 	}
 
+	/**
+	 * Evaluates {@code @s:len} over text in place.
+	 */
+	@ViewAttribute("s:len")
+	Integer length(N n, Collection<N> c, Index<N> i, CharSequence s) {
+		return s.length();
+	}
+
 	/**
 	 * Calls {@link String#toUpperCase()}.
 	 * 
@@ -686,9 +768,8 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 
 	/**
 	 * Determines whether the pattern matches the beginning of the input string.
-	 * This method calls {@link Matcher#lookingAt()}. If you have to match a
-	 * particular pattern often, it is likely more efficient to write your own
-	 * attribute that uses a pre-compiled {@link Pattern}.
+	 * This method calls {@link Matcher#lookingAt()}. Where the pattern is a
+	 * literal, the attribute compiles it once, when the path is compiled.
 	 * 
 	 * @param n
 	 *            context node; required for method signature but ignored
@@ -709,11 +790,20 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return Pattern.compile(pattern).matcher(s).lookingAt();
 	}
 
+	/**
+	 * Evaluates {@code @s:looking-at} over text in place, and a pre-compiled
+	 * {@link Pattern}.
+	 */
+	@ViewAttribute("s:looking-at")
+	boolean lookingAt(N n, Collection<N> c, Index<N> i,
+			CharSequence s, Pattern pattern) {
+		return pattern.matcher(s).lookingAt();
+	}
+
 	/**
 	 * Determines whether the pattern matches the input string anywhere. This
-	 * method calls {@link Matcher#find()}. If you have to match a particular
-	 * pattern often, it is likely more efficient to write your own attribute
-	 * that uses a pre-compiled {@link Pattern}.
+	 * method calls {@link Matcher#find()}. Where the pattern is a literal, the
+	 * attribute compiles it once, when the path is compiled.
 	 * 
 	 * @param n
 	 *            context node; required for method signature but ignored
@@ -734,6 +824,16 @@ public abstract class FunctionalForester<N> extends Forester<N> {
 		return Pattern.compile(pattern).matcher(s).find();
 	}
 
+	/**
+	 * Evaluates {@code @s:find} over text in place, and a pre-compiled
+	 * {@link Pattern}.
+	 */
+	@ViewAttribute("s:find")
+	boolean find(N n, Collection<N> c, Index<N> i,
+			CharSequence s, Pattern pattern) {
+		return pattern.matcher(s).find();
+	}
+
 	/**
 	 * A boolean attribute that is true if the object parameter is not null.
 	 * 
@@ -33,7 +33,7 @@ class IdSelector<N> implements Selector<N> {
 
 	@Override
 	public Collection<N> select(N n, Index<N> i) {
-		N identified = i.identifiedNodes.get(id);
+		N identified = i.identified(id);
 		if (identified == null)
 			return Collections.emptyList();
 		List<N> list = new ArrayList<N>(1);
@@ -8,9 +8,24 @@
  */
 package dfh.treepath;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A class that caches information pertaining to a particular tree, if
@@ -19,6 +34,19 @@ import java.util.Map;
  * the index supplements the tree with information not accessible from
  * particular nodes.
  * <p>
+ * An index is built at most once, by whichever thread first calls
+ * {@link #index()}. The state gathered by {@link #walk(Object)}, or read by
+ * {@link #restore(InputStream)}, is immutable once it is published to other
+ * threads by the write to {@link #indexed}; the following are recorded lazily
+ * thereafter, in thread-safe structures: the positions of nodes among their
+ * siblings, a family at a time, in concurrent maps; the results of nested
+ * paths, for each thread only for the duration of a query (see
+ * {@link #beginQuery()}); and, in a restored index, the nodes found at the
+ * positions the snapshot records. An index may therefore be shared among
+ * threads once built, and readers never take a lock. Subclasses that record
+ * additional information should do so only in the indexing methods called
+ * during the walk.
+ * <p>
  * 
  * @author David F. Houghton - Apr 28, 2012
  * 
@@ -26,6 +54,8 @@ import java.util.Map;
  *            a type of tree node
  */
 public class Index<N> {
+	private static final int SNAPSHOT_MAGIC = 0x54504958; // TPIX
+	private static final int SNAPSHOT_VERSION = 2;
 	/**
 	 * root node in tree
 	 */
@@ -41,9 +71,58 @@ public class Index<N> {
 	 */
 	protected Map<String, N> identifiedNodes;
 	/**
-	 * Whether the index has been initialized.
+	 * Whether the index has been initialized. This is volatile so that its
+	 * being {@code true} guarantees the visibility of everything recorded
+	 * during the walk.
+	 */
+	protected volatile boolean indexed;
+	/**
+	 * Held only while the index is being built. This is a
+	 * {@link ReentrantLock} rather than a monitor so that threads waiting for
+	 * another thread to finish indexing park rather than pin their carrier
+	 * thread.
+	 */
+	private final ReentrantLock indexLock = new ReentrantLock();
+	/**
+	 * The nodes in postorder, if {@link #numberNodes()}.
+	 */
+	private List<N> postorder;
+	/**
+	 * Map from nodes to their positions in {@link #postorder}.
+	 */
+	private Map<N, Integer> postorderNumbers;
+	/**
+	 * For each position in {@link #postorder}, the position of the first node
+	 * of the subtree rooted there.
+	 */
+	private int[] subtreeStarts;
+	/**
+	 * For each node, if {@link #summarizeTags()}, a bit set with bit k on if
+	 * any node in its subtree bears a tag whose hash code modulo 64 is k.
+	 */
+	private Map<N, Long> tagSummaries;
+	/**
+	 * Positions of nodes among their parents' kids. These are recorded a
+	 * family at a time, as they are needed, rather than during the walk. As
+	 * this may happen after the index is shared among threads, the map is
+	 * concurrent; threads racing to record a family record the same values.
 	 */
-	protected boolean indexed;
+	private final ConcurrentMap<N, Integer> siblingPositions = new ConcurrentHashMap<N, Integer>();
+	/**
+	 * Like {@link #siblingPositions} but for positions among all children,
+	 * ignored or not.
+	 */
+	private final ConcurrentMap<N, Integer> childPositions = new ConcurrentHashMap<N, Integer>();
+	/**
+	 * For the query each thread is evaluating, if any, the results of the
+	 * paths nested in its predicates and attribute arguments, by path and
+	 * context node. See {@link #beginQuery()}.
+	 */
+	private final ThreadLocal<Map<Path<N>, Map<N, Object>>> subpathResults = new ThreadLocal<Map<Path<N>, Map<N, Object>>>();
+	/**
+	 * The snapshot from which the index was restored, if it was.
+	 */
+	private Snapshot snapshot;
 
 	/**
 	 * Constructs an index for the tree with the specified root.
@@ -60,11 +139,113 @@ public class Index<N> {
 	}
 
 	/**
-	 * Walks tree performing indexing.
+	 * Walks tree performing indexing. Only the first call does any work;
+	 * threads that call this method while another thread is indexing wait for
+	 * it to finish.
+	 */
+	protected void index() {
+		if (indexed)
+			return;
+		indexLock.lock();
+		try {
+			if (!indexed) {
+				if (numberNodes())
+					startNumbering();
+				if (summarizeTags())
+					tagSummaries = new HashMap<N, Long>();
+				walk(root);
+				identifiedNodes = Collections.unmodifiableMap(identifiedNodes);
+				indexed = true;
+			}
+		} finally {
+			indexLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the index which {@link #restore(InputStream)} can
+	 * later use to initialize an index of the same tree without walking it.
+	 * The snapshot records the shape of the tree -- each node's parent and the
+	 * size of its subtree -- along with the postorder numbering, the tag
+	 * summaries, and the identified nodes, all as arrays indexed by the nodes'
+	 * positions in preorder, as given by {@link Forester#kids(Object, Index)}.
+	 * The index is built first if need be.
+	 * 
+	 * @param out
+	 *            stream to which the snapshot is written; it is flushed but not
+	 *            closed
+	 * @throws IOException
 	 */
-	protected synchronized void index() {
-		walk(root);
-		indexed = true;
+	public void save(OutputStream out) throws IOException {
+		index();
+		Map<N, String> ids = new IdentityHashMap<N, String>();
+		for (Entry<String, N> e : identifiedNodes.entrySet())
+			ids.put(e.getValue(), e.getKey());
+		Snapshot s = new Snapshot(ids);
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+				out));
+		dos.writeInt(SNAPSHOT_MAGIC);
+		dos.writeInt(SNAPSHOT_VERSION);
+		s.write(dos);
+		dos.flush();
+	}
+
+	/**
+	 * Initializes the index from a snapshot written by
+	 * {@link #save(OutputStream)} instead of walking the tree. Reading the
+	 * snapshot touches no node but the root. The nodes are found afterward, as
+	 * {@link Forester#kids(Object, Index)} produces them, and matched to
+	 * their recorded positions; nodes a query needs but has not yet reached,
+	 * such as those found by id or by postorder number, are found by following
+	 * their positions down from the nearest node already found. A query fails
+	 * with a {@link PathException} if a node found does not have the number of
+	 * kids or the id the snapshot records for it. After the recorded state is
+	 * restored, {@link #restored()} gives subclasses an opportunity to recover
+	 * anything else they need.
+	 * <p>
+	 * The snapshot is read with a {@link DataInputStream}, which does no
+	 * buffering of its own.
+	 * 
+	 * @param in
+	 *            stream from which the snapshot is read; it is not closed
+	 * @throws IOException
+	 * @throws PathException
+	 *             if the index has already been built or the stream does not
+	 *             hold a well-formed snapshot
+	 */
+	public void restore(InputStream in) throws IOException {
+		indexLock.lock();
+		try {
+			if (indexed)
+				throw new PathException("index has already been built");
+			DataInputStream dis = new DataInputStream(in);
+			if (dis.readInt() != SNAPSHOT_MAGIC)
+				throw new PathException("not an index snapshot");
+			int version = dis.readInt();
+			if (version != SNAPSHOT_VERSION)
+				throw new PathException("unsupported index snapshot version "
+						+ version);
+			Snapshot s = new Snapshot(dis);
+			if (numberNodes())
+				subtreeStarts = s.subtreeStarts();
+			if (!summarizeTags())
+				s.summaries = null;
+			snapshot = s;
+			restored();
+			identifiedNodes = Collections.unmodifiableMap(identifiedNodes);
+			indexed = true;
+		} finally {
+			indexLock.unlock();
+		}
+	}
+
+	/**
+	 * Called by {@link #restore(InputStream)} once the state recorded in the
+	 * snapshot has been restored. Subclasses that gather information which the
+	 * snapshot does not record should gather it here, or else as queries need
+	 * it. Unless overridden this method does nothing.
+	 */
+	protected void restored() {
 	}
 
 	/**
@@ -86,10 +267,333 @@ public class Index<N> {
 	protected void walk(N n) {
 		List<N> children = f.kids(n, this);
 		index(n);
+		int start = postorder == null ? 0 : postorder.size();
+		long summary = tagSummaries == null ? 0 : tagBit(n);
 		for (N c : children) {
 			index(n, c);
 			walk(c);
+			if (tagSummaries != null)
+				summary |= tagSummaries.get(c);
 		}
+		if (postorder != null)
+			number(n, start);
+		if (tagSummaries != null)
+			tagSummaries.put(n, summary);
+	}
+
+	/**
+	 * Whether the walk should number the nodes in postorder. With this
+	 * numbering the following and preceding axes are found by scanning ranges
+	 * of numbers rather than by walking the tree around the context node, at
+	 * the cost of a map entry per node. Unless overridden this method returns
+	 * false.
+	 * 
+	 * @return whether to number the nodes
+	 */
+	protected boolean numberNodes() {
+		return false;
+	}
+
+	/**
+	 * Whether the walk should summarize the tags found in each subtree, as
+	 * given by {@link Forester#tag(Object)}, so that searches for a tag, such
+	 * as {@code //foo}, can skip subtrees that cannot contain it. Each summary
+	 * is a 64-bit hash of the tags present, so it costs a map entry per node.
+	 * Unless overridden this method returns false.
+	 * 
+	 * @return whether to summarize tags
+	 */
+	protected boolean summarizeTags() {
+		return false;
+	}
+
+	private long tagBit(N n) {
+		String tag = f.tag(n);
+		return tag == null ? -1L : tagBit(tag);
+	}
+
+	private static long tagBit(String tag) {
+		return 1L << (tag.hashCode() & 63);
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @param t
+	 *            a node test
+	 * @return whether the tag summaries show that no node in n's subtree can
+	 *         pass t
+	 */
+	boolean excludes(N n, NodeTest<N> t) {
+		if (!(t instanceof TagTest<?>))
+			return false;
+		Long summary;
+		if (snapshot != null)
+			summary = snapshot.summary(n);
+		else if (tagSummaries != null)
+			summary = tagSummaries.get(n);
+		else
+			return false;
+		return summary != null
+				&& (summary & tagBit(((TagTest<N>) t).tag)) == 0;
+	}
+
+	private void startNumbering() {
+		postorder = new ArrayList<N>();
+		postorderNumbers = new HashMap<N, Integer>();
+		subtreeStarts = new int[16];
+	}
+
+	/**
+	 * Assigns n the next postorder number.
+	 * 
+	 * @param n
+	 *            node whose descendants have all been numbered
+	 * @param start
+	 *            the number of n's first descendant, or of n if it has none
+	 */
+	private void number(N n, int start) {
+		int k = postorder.size();
+		postorder.add(n);
+		postorderNumbers.put(n, k);
+		if (k == subtreeStarts.length)
+			subtreeStarts = Arrays.copyOf(subtreeStarts, k * 2);
+		subtreeStarts[k] = start;
+	}
+
+	/**
+	 * Finds a node among its siblings. The first request concerning any member
+	 * of a family records the positions of all its members, so later requests
+	 * take constant time.
+	 * 
+	 * @param n
+	 *            a node other than the root
+	 * @param siblings
+	 *            the kids of n's parent
+	 * @return the position of n in siblings; -1 if it is not there
+	 */
+	int siblingPosition(N n, List<N> siblings) {
+		return position(siblingPositions, n, siblings);
+	}
+
+	/**
+	 * Like {@link #siblingPosition(Object, List)} but counting ignored nodes.
+	 * 
+	 * @param n
+	 *            a node other than the root
+	 * @param children
+	 *            all the children of n's parent
+	 * @return the position of n in children; -1 if it is not there
+	 */
+	int childPosition(N n, List<N> children) {
+		return position(childPositions, n, children);
+	}
+
+	private int position(ConcurrentMap<N, Integer> positions, N n,
+			List<N> siblings) {
+		Integer k = positions.get(n);
+		if (k == null) {
+			int j = 0;
+			for (N s : siblings)
+				positions.put(s, j++);
+			k = positions.get(n);
+			if (k == null)
+				return -1;
+		}
+		if (k >= siblings.size() || siblings.get(k) != n) {
+			// n is equal to, but not the same as, some other node
+			for (int j = 0, lim = siblings.size(); j < lim; j++) {
+				if (siblings.get(j) == n)
+					return j;
+			}
+			return -1;
+		}
+		return k;
+	}
+
+	/**
+	 * Opens a scope within which the results of nested paths are remembered,
+	 * unless the calling thread is already within one. The scope must be
+	 * closed by {@link #endQuery()} when, and only when, this method returns
+	 * true, so that nothing is remembered beyond the query that opened it.
+	 * 
+	 * @return whether a new scope was opened
+	 */
+	boolean beginQuery() {
+		if (subpathResults.get() != null)
+			return false;
+		subpathResults.set(new IdentityHashMap<Path<N>, Map<N, Object>>());
+		return true;
+	}
+
+	/**
+	 * Closes the scope opened by {@link #beginQuery()}, discarding the results
+	 * remembered within it.
+	 */
+	void endQuery() {
+		subpathResults.remove();
+	}
+
+	/**
+	 * @param p
+	 *            a nested path
+	 * @return the results of p remembered in the current query, by context
+	 *         node, each either the nodes selected or a {@link Boolean}
+	 *         recording only whether any were; null if there is no current
+	 *         query
+	 */
+	Map<N, Object> subpathResults(Path<N> p) {
+		Map<Path<N>, Map<N, Object>> results = subpathResults.get();
+		if (results == null)
+			return null;
+		Map<N, Object> m = results.get(p);
+		if (m == null) {
+			m = new IdentityHashMap<N, Object>();
+			results.put(p, m);
+		}
+		return m;
+	}
+
+	/**
+	 * @return whether the nodes have been numbered in postorder
+	 */
+	boolean numbered() {
+		return subtreeStarts != null;
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @return n's postorder number; -1 if it has none
+	 */
+	int postorderNumber(N n) {
+		if (snapshot != null)
+			return snapshot.postorderNumber(n);
+		Integer k = postorderNumbers.get(n);
+		return k == null ? -1 : k;
+	}
+
+	/**
+	 * @param k
+	 *            a postorder number
+	 * @return the node bearing the number
+	 */
+	N postorderNode(int k) {
+		if (snapshot != null)
+			return snapshot.node(snapshot.preorder[k]);
+		return postorder.get(k);
+	}
+
+	/**
+	 * @param k
+	 *            a postorder number
+	 * @return the number of the first node in the subtree rooted at node k
+	 */
+	int subtreeStart(int k) {
+		return subtreeStarts[k];
+	}
+
+	/**
+	 * Returns the postorder numbers of all the nodes in the tree that pass a
+	 * test, if the index can find them without testing each node. Unless
+	 * overridden this method returns null.
+	 * 
+	 * @param t
+	 *            a node test
+	 * @return the numbers in ascending order, or null
+	 */
+	int[] postings(NodeTest<N> t) {
+		return null;
+	}
+
+	/**
+	 * Finds the descendants of a node that pass a test by way of
+	 * {@link #postings(NodeTest)}.
+	 * 
+	 * @param n
+	 *            a node
+	 * @param t
+	 *            a node test
+	 * @param self
+	 *            whether n itself may be included
+	 * @return the nodes found, in postorder; null if the index has no postings
+	 *         for t or has not numbered n
+	 */
+	List<N> postedDescendants(N n, NodeTest<N> t, boolean self) {
+		if (!numbered())
+			return null;
+		int[] postings = postings(t);
+		if (postings == null)
+			return null;
+		int k = postorderNumber(n);
+		if (k == -1)
+			return null;
+		int from = ceiling(postings, subtreeStarts[k]), to = ceiling(
+				postings, self ? k + 1 : k);
+		List<N> found = new ArrayList<N>(to - from);
+		for (int j = from; j < to; j++)
+			found.add(postorderNode(postings[j]));
+		return found;
+	}
+
+	/**
+	 * @param postings
+	 *            postorder numbers in ascending order
+	 * @param k
+	 *            a postorder number
+	 * @return the position of the first number not less than k
+	 */
+	static int ceiling(int[] postings, int k) {
+		int j = Arrays.binarySearch(postings, k);
+		return j < 0 ? -j - 1 : j;
+	}
+
+	/**
+	 * @param id
+	 *            an id
+	 * @return the node bearing the id; null if there is none
+	 */
+	N identified(String id) {
+		N n = identifiedNodes.get(id);
+		if (n == null && snapshot != null)
+			n = snapshot.identified(id);
+		return n;
+	}
+
+	/**
+	 * Matches the kids of a node to the positions recorded for them in the
+	 * snapshot from which the index was restored, if it was. Called by
+	 * {@link Forester#kids(Object, Index)} whenever it finds a node's kids.
+	 * 
+	 * @param n
+	 *            a node
+	 * @param kids
+	 *            n's kids
+	 */
+	void found(N n, List<N> kids) {
+		if (snapshot != null)
+			snapshot.found(n, kids);
+	}
+
+	/**
+	 * Returns the parent of a node as recorded in the snapshot from which the
+	 * index was restored. This serves subclasses which record the parents of
+	 * nodes as they walk the tree, such as {@link ParentIndex}. If n has not
+	 * yet been found, every node of the tree is found, by way of the root,
+	 * before giving up.
+	 * 
+	 * @param n
+	 *            a node
+	 * @return n's parent; null if the index was not restored from a snapshot,
+	 *         n is the root, or n is not in the tree
+	 */
+	protected N restoredParent(N n) {
+		if (snapshot == null)
+			return null;
+		Integer p = snapshot.locate(n);
+		if (p == null || p == 0)
+			return null;
+		return snapshot.node(snapshot.parents[p]);
 	}
 
 	/**
@@ -116,6 +620,22 @@ public class Index<N> {
 	protected void index(N n, N c) {
 	}
 
+	/**
+	 * Returns the kids of a node -- its children less those its
+	 * {@link Forester} ignores -- if the index has recorded them.
+	 * {@link Forester#kids(Object, Index)} consults this method before asking
+	 * the forester for the node's children. Unless overridden this method
+	 * records nothing and returns null. An index that records kids should do
+	 * so during the walk, and the lists it returns must not be modified.
+	 * 
+	 * @param n
+	 *            a node
+	 * @return the kids of n, or null if they have not been recorded
+	 */
+	protected List<N> kids(N n) {
+		return null;
+	}
+
 	/**
 	 * Indicates whether the given node is the root.
 	 * 
@@ -137,4 +657,337 @@ public class Index<N> {
 	public String id(N n) {
 		return null;
 	}
+
+	/**
+	 * The shape and numbering of the tree, by preorder position, as recorded
+	 * in a snapshot, together with the nodes found so far at those positions.
+	 */
+	private class Snapshot {
+		/**
+		 * The number of nodes in the tree.
+		 */
+		final int size;
+		/**
+		 * The position of each node's parent; -1 for the root.
+		 */
+		int[] parents;
+		/**
+		 * The number of nodes in each node's subtree, counting itself.
+		 */
+		int[] sizes;
+		/**
+		 * Each node's postorder number.
+		 */
+		int[] postorder;
+		/**
+		 * The postorder number of the first node in each node's subtree.
+		 */
+		int[] starts;
+		/**
+		 * Each node's tag summary; null if the index does not summarize tags.
+		 */
+		long[] summaries;
+		/**
+		 * The position of the node bearing each id.
+		 */
+		final Map<String, Integer> ids;
+		/**
+		 * The position of each postorder number; filled by
+		 * {@link #subtreeStarts()}.
+		 */
+		int[] preorder;
+		/**
+		 * The nodes found at each position.
+		 */
+		private AtomicReferenceArray<N> nodes;
+		/**
+		 * The positions of the nodes found, keyed by identity, so that equal
+		 * siblings each keep their own.
+		 */
+		private final ConcurrentMap<Key, Integer> offsets = new ConcurrentHashMap<Key, Integer>();
+		/**
+		 * Whether every position has been found.
+		 */
+		private volatile boolean complete;
+		private int count, number;
+
+		/**
+		 * Records the tree as the index finds it.
+		 * 
+		 * @param identified
+		 *            the identified nodes and their ids
+		 */
+		Snapshot(Map<N, String> identified) {
+			parents = new int[16];
+			sizes = new int[16];
+			postorder = new int[16];
+			starts = new int[16];
+			summaries = new long[16];
+			ids = new HashMap<String, Integer>();
+			record(root, -1, identified);
+			size = count;
+		}
+
+		/**
+		 * Reads a snapshot written by {@link #write(DataOutputStream)}.
+		 * 
+		 * @param in
+		 *            stream positioned after the snapshot header
+		 * @throws IOException
+		 */
+		Snapshot(DataInputStream in) throws IOException {
+			size = in.readInt();
+			if (size < 1)
+				throw new PathException("corrupt index snapshot: size " + size);
+			parents = read(in);
+			sizes = read(in);
+			postorder = read(in);
+			starts = read(in);
+			summaries = new long[size];
+			for (int p = 0; p < size; p++)
+				summaries[p] = in.readLong();
+			int lim = in.readInt();
+			if (lim < 0 || lim > size)
+				throw new PathException("corrupt index snapshot: " + lim
+						+ " ids");
+			ids = new HashMap<String, Integer>(lim * 2);
+			for (int j = 0; j < lim; j++) {
+				String id = in.readUTF();
+				int p = in.readInt();
+				if (p < 0 || p >= size)
+					throw new PathException("corrupt index snapshot: id " + id
+							+ " at position " + p);
+				ids.put(id, p);
+			}
+			check();
+			nodes = new AtomicReferenceArray<N>(size);
+			offsets.put(new Key(root), 0);
+			nodes.set(0, root);
+		}
+
+		private int[] read(DataInputStream in) throws IOException {
+			int[] a = new int[size];
+			for (int p = 0; p < size; p++)
+				a[p] = in.readInt();
+			return a;
+		}
+
+		/**
+		 * Makes sure the arrays describe a tree, so that no query can index
+		 * them out of bounds.
+		 */
+		private void check() {
+			if (parents[0] != -1 || sizes[0] != size)
+				throw new PathException("corrupt index snapshot: bad root");
+			int[] seen = new int[size];
+			for (int p = 0; p < size; p++) {
+				if (p > 0 && (parents[p] < 0 || parents[p] >= p))
+					throw new PathException(
+							"corrupt index snapshot: bad parent at position "
+									+ p);
+				if (sizes[p] < 1 || sizes[p] > size - p
+						|| p > 0 && p + sizes[p] > parents[p] + sizes[parents[p]])
+					throw new PathException(
+							"corrupt index snapshot: bad size at position " + p);
+				int k = postorder[p];
+				if (k < 0 || k >= size || seen[k]++ > 0
+						|| starts[p] != k - sizes[p] + 1)
+					throw new PathException(
+							"corrupt index snapshot: bad number at position "
+									+ p);
+			}
+		}
+
+		/**
+		 * Records the subtree under n in preorder.
+		 * 
+		 * @param n
+		 *            a node
+		 * @param parent
+		 *            the position of n's parent
+		 * @param identified
+		 *            the identified nodes and their ids
+		 * @return n's position
+		 */
+		private int record(N n, int parent, Map<N, String> identified) {
+			int p = count++;
+			if (p == parents.length)
+				grow();
+			parents[p] = parent;
+			String id = identified.get(n);
+			if (id != null)
+				ids.put(id, p);
+			int start = number;
+			long summary = tagBit(n);
+			for (N c : f.kids(n, Index.this)) {
+				int q = record(c, p, identified);
+				summary |= summaries[q];
+			}
+			sizes[p] = count - p;
+			starts[p] = start;
+			postorder[p] = number++;
+			summaries[p] = summary;
+			return p;
+		}
+
+		private void grow() {
+			int length = parents.length * 2;
+			parents = Arrays.copyOf(parents, length);
+			sizes = Arrays.copyOf(sizes, length);
+			postorder = Arrays.copyOf(postorder, length);
+			starts = Arrays.copyOf(starts, length);
+			summaries = Arrays.copyOf(summaries, length);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(size);
+			for (int[] a : new int[][] { parents, sizes, postorder, starts })
+				for (int p = 0; p < size; p++)
+					out.writeInt(a[p]);
+			for (int p = 0; p < size; p++)
+				out.writeLong(summaries[p]);
+			out.writeInt(ids.size());
+			for (Entry<String, Integer> e : ids.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeInt(e.getValue());
+			}
+		}
+
+		/**
+		 * @return the postorder number of the first node in each subtree, by
+		 *         postorder number
+		 */
+		int[] subtreeStarts() {
+			int[] subtreeStarts = new int[size];
+			preorder = new int[size];
+			for (int p = 0; p < size; p++) {
+				subtreeStarts[postorder[p]] = starts[p];
+				preorder[postorder[p]] = p;
+			}
+			return subtreeStarts;
+		}
+
+		/**
+		 * @param n
+		 *            a node
+		 * @return n's position; null if n has not been found
+		 */
+		Integer offset(N n) {
+			return offsets.get(new Key(n));
+		}
+
+		/**
+		 * Finds a node's position, finding every node in the tree, by way of
+		 * the root, if the node has not been found yet.
+		 * 
+		 * @param n
+		 *            a node
+		 * @return n's position; null if n is not in the tree
+		 */
+		Integer locate(N n) {
+			Integer p = offset(n);
+			if (p == null && !complete) {
+				for (int q = 1; q < size; q++)
+					node(q);
+				complete = true;
+				p = offset(n);
+			}
+			return p;
+		}
+
+		int postorderNumber(N n) {
+			Integer p = offset(n);
+			return p == null ? -1 : postorder[p];
+		}
+
+		Long summary(N n) {
+			if (summaries == null)
+				return null;
+			Integer p = offset(n);
+			return p == null ? null : summaries[p];
+		}
+
+		/**
+		 * Records the positions of the kids of a node that has been found.
+		 * 
+		 * @param n
+		 *            a node
+		 * @param kids
+		 *            its kids
+		 */
+		void found(N n, List<N> kids) {
+			Integer p = offset(n);
+			if (p == null)
+				return;
+			int c = p + 1, end = p + sizes[p];
+			for (N k : kids) {
+				if (c >= end)
+					throw mismatch(p);
+				// the position is recorded before the node is published, so
+				// any thread that finds the node at c can also find c
+				if (nodes.get(c) != k) {
+					offsets.putIfAbsent(new Key(k), c);
+					nodes.compareAndSet(c, null, k);
+				}
+				c += sizes[c];
+			}
+			if (c != end)
+				throw mismatch(p);
+		}
+
+		private PathException mismatch(int p) {
+			return new PathException(
+					"index snapshot does not match tree: wrong number of kids at preorder position "
+							+ p);
+		}
+
+		/**
+		 * @param p
+		 *            a position
+		 * @return the node there, found by way of its ancestors if need be
+		 */
+		N node(int p) {
+			N n = nodes.get(p);
+			if (n == null) {
+				f.kids(node(parents[p]), Index.this);
+				n = nodes.get(p);
+				if (n == null)
+					throw mismatch(parents[p]);
+			}
+			return n;
+		}
+
+		N identified(String id) {
+			Integer p = ids.get(id);
+			if (p == null)
+				return null;
+			N n = node(p);
+			if (!id.equals(id(n)))
+				throw new PathException(
+						"index snapshot does not match tree: node at recorded position of "
+								+ id + " has id " + id(n));
+			return n;
+		}
+	}
+
+	/**
+	 * Wraps a node so that it is compared by identity.
+	 */
+	private static final class Key {
+		private final Object n;
+
+		Key(Object n) {
+			this.n = n;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(n);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).n == n;
+		}
+	}
 }
@@ -13,6 +13,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
 
 /**
  * Instantiates the predicate in {@code a[1]} and the like. This predicate
@@ -31,6 +33,14 @@ class IndexPredicate<N> extends Predicate<N> {
 		this.index = index;
 	}
 
+	/**
+	 * @return the position selected
+	 */
+	int index() {
+		return index;
+	}
+
+	@SuppressWarnings("unchecked")
 	@Override
 	Collection<N> filter(Collection<N> c, Index<N> i) {
 		int in = index;
@@ -39,6 +49,19 @@ class IndexPredicate<N> extends Predicate<N> {
 		if (in < 0 || in >= c.size())
 			return Collections.emptyList();
 		List<N> filtrate = new ArrayList<N>(1);
+		if (c instanceof List<?>) {
+			List<N> l = (List<N>) c;
+			if (l instanceof RandomAccess)
+				filtrate.add(l.get(in));
+			else if (index < 0) {
+				ListIterator<N> k = l.listIterator(l.size());
+				for (int j = index; j < 0; j++)
+					k.previous();
+				filtrate.add(k.next());
+			} else
+				filtrate.add(l.listIterator(in).next());
+			return filtrate;
+		}
 		int j = 0;
 		for (Iterator<N> k = c.iterator(); k.hasNext();) {
 			N n = k.next();
@@ -50,4 +73,8 @@ class IndexPredicate<N> extends Predicate<N> {
 		return filtrate;
 	}
 
+	@Override
+	boolean local() {
+		return false;
+	}
 }
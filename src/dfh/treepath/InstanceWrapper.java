@@ -20,6 +20,16 @@ import java.lang.reflect.Method;
 @SuppressWarnings("rawtypes")
 class InstanceWrapper {
 	private final Method m;
+	/**
+	 * The {@link BatchAttribute} method evaluating the same attribute, if any.
+	 * This is set only while the attributes of a class are discovered.
+	 */
+	private Method batch;
+	/**
+	 * The {@link ViewAttribute} method evaluating the same attribute, if any.
+	 * This is set only while the attributes of a class are discovered.
+	 */
+	private Method view;
 
 	InstanceWrapper(Forester f, Method m) {
 		this.m = m;
@@ -32,4 +42,25 @@ class InstanceWrapper {
 	Method method() {
 		return m;
 	}
+
+	Method batch() {
+		return batch;
+	}
+
+	void batch(Method batch) {
+		this.batch = batch;
+	}
+
+	/**
+	 * @return the method to invoke to evaluate the attribute: the
+	 *         {@link ViewAttribute} method if there is one, otherwise
+	 *         {@link #method()}
+	 */
+	Method evaluator() {
+		return view == null ? m : view;
+	}
+
+	void view(Method view) {
+		this.view = view;
+	}
 }
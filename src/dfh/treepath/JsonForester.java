@@ -0,0 +1,125 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import dfh.treepath.JsonTree.Node;
+
+/**
+ * A {@link Forester} for {@link JsonTree JsonTrees}, and so for JSON
+ * documents and nested {@link java.util.Map Maps} and {@link java.util.List
+ * Lists}. A node's tag is the key under which its object holds it. Nodes know
+ * their own parents and children, so the index this forester builds records
+ * nothing but the root. For example
+ *
+ * <pre>
+ * JsonTree t = JsonTree.of(map);
+ * Path&lt;Node&gt; p = new JsonForester()
+ * 		.path(&quot;//items/*&#47;price[@value &gt; 10]&quot;);
+ * for (Node n : p.select(t.root()))
+ * 	System.out.println(n.object());
+ * </pre>
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class JsonForester extends FunctionalForester<Node> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Delegates to {@link FunctionalForester#FunctionalForester(NodeTest...)}.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public JsonForester(NodeTest<Node>... ignore) {
+		super(ignore);
+	}
+
+	@Override
+	protected List<Node> children(Node n, Index<Node> i) {
+		return n.tree().children(n);
+	}
+
+	@Override
+	protected boolean hasTag(Node n, String tag) {
+		return tag.equals(n.key());
+	}
+
+	@Override
+	protected String tag(Node n) {
+		return n.key();
+	}
+
+	@Override
+	protected boolean matchesTag(Node n, Pattern p) {
+		String key = n.key();
+		return key != null && p.matcher(key).find();
+	}
+
+	/**
+	 * Returns the parent the {@link JsonTree} records, unless n is the root of
+	 * the index, which has no parent even if it is not the root of its tree.
+	 */
+	@Override
+	protected Node parent(Node n, Index<Node> i) {
+		if (i.isRoot(n))
+			return null;
+		return n.tree().parent(n);
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the node's key, if any
+	 */
+	@Attribute(description = "the key of the node in its object")
+	public String key(Node n, Collection<Node> c, Index<Node> i) {
+		return n.key();
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the kind of JSON value of the node: object, array, string,
+	 *         number, boolean, or null
+	 */
+	@Attribute(description = "the kind of JSON value of the node")
+	public String type(Node n, Collection<Node> c, Index<Node> i) {
+		return n.type().name().toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the value of a string, number, or boolean; null otherwise
+	 */
+	@Attribute(description = "the value of a string, number, or boolean")
+	public Object value(Node n, Collection<Node> c, Index<Node> i) {
+		return n.value();
+	}
+}
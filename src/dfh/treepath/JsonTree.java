@@ -0,0 +1,606 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A compact, read-only tree of JSON-shaped data -- objects, arrays, strings,
+ * numbers, booleans, and nulls -- to be queried with a {@link JsonForester}.
+ * A tree can be made from nested {@link Map Maps} and {@link List Lists}
+ * with {@link #of(Object)}, or {@link #load(Reader) loaded} straight from JSON
+ * text without building any maps or lists.
+ * <p>
+ * Every value is a node. A member of an object is tagged with its key; the
+ * elements of an array and the root bear no tag, so the prices in
+ * {@code {"items":[{"price":1},{"price":2}]}} are found by
+ * {@code //items/*}{@code /price}. The tree is held as parallel arrays indexed
+ * by the nodes' positions in preorder -- parents, keys, types, and the offsets
+ * of each node's children -- with each distinct key stored once, so nodes
+ * know their parents without an index recording them.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class JsonTree {
+	/**
+	 * The kinds of JSON value.
+	 */
+	public enum Type {
+		OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+	}
+
+	private static final Type[] typeValues = Type.values();
+
+	/**
+	 * A node in a {@link JsonTree}. There is only ever one {@link Node}
+	 * object for a given node in a given tree, so nodes may be compared by
+	 * identity.
+	 * <p>
+	 */
+	public static final class Node {
+		private final JsonTree tree;
+		private final int id;
+
+		private Node(JsonTree tree, int id) {
+			this.tree = tree;
+			this.id = id;
+		}
+
+		/**
+		 * @return the node's position in the preorder traversal of its tree
+		 */
+		public int id() {
+			return id;
+		}
+
+		/**
+		 * @return the tree containing this node
+		 */
+		public JsonTree tree() {
+			return tree;
+		}
+
+		/**
+		 * @return the key of the object member this node is the value of; null
+		 *         for array elements and the root
+		 */
+		public String key() {
+			int k = tree.keys[id];
+			return k == -1 ? null : tree.keyNames[k];
+		}
+
+		/**
+		 * @return the kind of value this node is
+		 */
+		public Type type() {
+			return typeValues[tree.types[id]];
+		}
+
+		/**
+		 * @return the value of a string, number, or boolean as a
+		 *         {@link String}, {@link Long} or {@link Double}, or
+		 *         {@link Boolean}; null for nulls, objects, and arrays
+		 */
+		public Object value() {
+			return tree.values[id];
+		}
+
+		/**
+		 * Returns the value this node represents. For a tree made by
+		 * {@link JsonTree#of(Object)} this is the object the node was made
+		 * from; otherwise objects and arrays are built as
+		 * {@link LinkedHashMap LinkedHashMaps} and {@link ArrayList
+		 * ArrayLists}.
+		 *
+		 * @return the value this node represents
+		 */
+		public Object object() {
+			if (tree.originals != null)
+				return tree.originals[id];
+			return tree.build(id);
+		}
+
+		@Override
+		public String toString() {
+			String key = key();
+			return (key == null ? "" : key) + '#' + id;
+		}
+	}
+
+	private final int size;
+	private final int[] parents, keys, childOffsets, children;
+	private final byte[] types;
+	private final Object[] values, originals;
+	private final String[] keyNames;
+	private final AtomicReferenceArray<Node> nodes;
+
+	private JsonTree(Builder b) {
+		size = b.size;
+		parents = Arrays.copyOf(b.parents, size);
+		keys = Arrays.copyOf(b.keys, size);
+		types = Arrays.copyOf(b.types, size);
+		values = b.values.toArray();
+		originals = b.originals == null ? null : b.originals.toArray();
+		keyNames = b.keyNames.toArray(new String[b.keyNames.size()]);
+		// children are grouped by parent; preorder ids keep them in order
+		childOffsets = new int[size + 1];
+		for (int i = 1; i < size; i++)
+			childOffsets[parents[i] + 1]++;
+		for (int i = 0; i < size; i++)
+			childOffsets[i + 1] += childOffsets[i];
+		children = new int[Math.max(size - 1, 0)];
+		int[] fill = new int[size];
+		for (int i = 1; i < size; i++) {
+			int p = parents[i];
+			children[childOffsets[p] + fill[p]++] = i;
+		}
+		nodes = new AtomicReferenceArray<Node>(size);
+	}
+
+	/**
+	 * Makes a tree of nested maps and lists. Maps must have string keys;
+	 * values other than maps, lists, strings, numbers, and booleans are
+	 * stored as strings.
+	 *
+	 * @param root
+	 *            a map, list, or single value
+	 * @return the tree
+	 */
+	public static JsonTree of(Object root) {
+		Builder b = new Builder(true);
+		// iterative preorder walk so deep trees can't overflow the stack
+		List<Object> stack = new ArrayList<Object>();
+		List<Object> keyStack = new ArrayList<Object>();
+		List<Integer> parentStack = new ArrayList<Integer>();
+		stack.add(root);
+		keyStack.add(null);
+		parentStack.add(-1);
+		while (!stack.isEmpty()) {
+			Object o = stack.remove(stack.size() - 1);
+			Object key = keyStack.remove(keyStack.size() - 1);
+			int parent = parentStack.remove(parentStack.size() - 1);
+			String k = key == null ? null : key.toString();
+			if (o instanceof Map<?, ?>) {
+				int id = b.add(parent, k, Type.OBJECT, null, o);
+				List<Entry<?, ?>> entries = new ArrayList<Entry<?, ?>>(
+						((Map<?, ?>) o).entrySet());
+				for (int i = entries.size() - 1; i >= 0; i--) {
+					Entry<?, ?> e = entries.get(i);
+					if (e.getKey() == null)
+						throw new PathException("JSON keys cannot be null");
+					stack.add(e.getValue());
+					keyStack.add(e.getKey());
+					parentStack.add(id);
+				}
+			} else if (o instanceof List<?>) {
+				int id = b.add(parent, k, Type.ARRAY, null, o);
+				List<?> list = (List<?>) o;
+				for (int i = list.size() - 1; i >= 0; i--) {
+					stack.add(list.get(i));
+					keyStack.add(null);
+					parentStack.add(id);
+				}
+			} else if (o == null)
+				b.add(parent, k, Type.NULL, null, null);
+			else if (o instanceof Boolean)
+				b.add(parent, k, Type.BOOLEAN, o, o);
+			else if (o instanceof Number)
+				b.add(parent, k, Type.NUMBER, o, o);
+			else
+				b.add(parent, k, Type.STRING, o.toString(), o);
+		}
+		return new JsonTree(b);
+	}
+
+	/**
+	 * Reads a JSON document into a tree. Values are stored as they are read,
+	 * so no maps or lists are made, and the document may be nested to any
+	 * depth. Numbers without a fraction or exponent that fit in a
+	 * {@code long} are stored as {@link Long Longs}, other numbers as
+	 * {@link Double Doubles}.
+	 *
+	 * @param in
+	 *            source of JSON text; it is not closed
+	 * @return the tree
+	 * @throws IOException
+	 * @throws PathException
+	 *             if the text is not well-formed JSON
+	 */
+	public static JsonTree load(Reader in) throws IOException {
+		return new Loader(in).load();
+	}
+
+	/**
+	 * @return the number of nodes in the tree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the root of the tree
+	 */
+	public Node root() {
+		return node(0);
+	}
+
+	/**
+	 * @param id
+	 *            preorder position of a node
+	 * @return the node at that position
+	 */
+	public Node node(int id) {
+		Node n = nodes.get(id);
+		if (n == null) {
+			n = new Node(this, id);
+			if (!nodes.compareAndSet(id, null, n))
+				n = nodes.get(id);
+		}
+		return n;
+	}
+
+	Node parent(Node n) {
+		int p = parents[n.id];
+		return p == -1 ? null : node(p);
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @return a view of the node's children
+	 */
+	List<Node> children(Node n) {
+		int start = childOffsets[n.id], end = childOffsets[n.id + 1];
+		if (start == end)
+			return Collections.emptyList();
+		return new ChildList(start, end);
+	}
+
+	private class ChildList extends AbstractList<Node> implements RandomAccess {
+		private final int start, end;
+
+		ChildList(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Node get(int index) {
+			if (index < 0 || index >= end - start)
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			return node(children[start + index]);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * Builds maps and lists for the subtree rooted at a node.
+	 *
+	 * @param id
+	 *            a node
+	 * @return the value the subtree represents
+	 */
+	private Object build(int id) {
+		Type t = typeValues[types[id]];
+		if (t != Type.OBJECT && t != Type.ARRAY)
+			return values[id];
+		int start = childOffsets[id], end = childOffsets[id + 1];
+		if (t == Type.ARRAY) {
+			List<Object> list = new ArrayList<Object>(end - start);
+			for (int i = start; i < end; i++)
+				list.add(build(children[i]));
+			return list;
+		}
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		for (int i = start; i < end; i++)
+			map.put(keyNames[keys[children[i]]], build(children[i]));
+		return map;
+	}
+
+	/**
+	 * Accumulates nodes in preorder.
+	 */
+	private static class Builder {
+		int size;
+		int[] parents = new int[64], keys = new int[64];
+		byte[] types = new byte[64];
+		final List<Object> values = new ArrayList<Object>();
+		final List<Object> originals;
+		final List<String> keyNames = new ArrayList<String>();
+		private final Map<String, Integer> keyIds = new HashMap<String, Integer>();
+
+		Builder(boolean keepOriginals) {
+			originals = keepOriginals ? new ArrayList<Object>() : null;
+		}
+
+		/**
+		 * Appends a node.
+		 *
+		 * @return the node's id
+		 */
+		int add(int parent, String key, Type type, Object value,
+				Object original) {
+			if (size == parents.length) {
+				parents = Arrays.copyOf(parents, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+				types = Arrays.copyOf(types, size * 2);
+			}
+			parents[size] = parent;
+			keys[size] = key == null ? -1 : keyId(key);
+			types[size] = (byte) type.ordinal();
+			values.add(value);
+			if (originals != null)
+				originals.add(original);
+			return size++;
+		}
+
+		private int keyId(String key) {
+			Integer id = keyIds.get(key);
+			if (id == null) {
+				id = keyNames.size();
+				keyIds.put(key, id);
+				keyNames.add(key);
+			}
+			return id;
+		}
+
+		Type type(int id) {
+			return typeValues[types[id]];
+		}
+	}
+
+	/**
+	 * Reads JSON text, adding each value to a {@link Builder} as it begins.
+	 */
+	private static class Loader {
+		private final Reader in;
+		private final char[] buffer = new char[8192];
+		private int position, limit, offset;
+		private final Builder b = new Builder(false);
+		private final StringBuilder text = new StringBuilder();
+
+		Loader(Reader in) {
+			this.in = in;
+		}
+
+		JsonTree load() throws IOException {
+			// the open objects and arrays
+			int[] stack = new int[16];
+			int depth = 0, parent = -1;
+			String key = null;
+			VALUES: while (true) {
+				int c = next();
+				switch (c) {
+				case '{':
+				case '[':
+					int id = b.add(parent, key, c == '{' ? Type.OBJECT
+							: Type.ARRAY, null, null);
+					if (depth == stack.length)
+						stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = id;
+					if (peek() == (c == '{' ? '}' : ']'))
+						read();
+					else {
+						parent = id;
+						key = c == '{' ? key() : null;
+						continue VALUES;
+					}
+					depth--;
+					break;
+				case '"':
+					b.add(parent, key, Type.STRING, string(), null);
+					break;
+				case 't':
+					literal("rue");
+					b.add(parent, key, Type.BOOLEAN, Boolean.TRUE, null);
+					break;
+				case 'f':
+					literal("alse");
+					b.add(parent, key, Type.BOOLEAN, Boolean.FALSE, null);
+					break;
+				case 'n':
+					literal("ull");
+					b.add(parent, key, Type.NULL, null, null);
+					break;
+				default:
+					if (c == '-' || c >= '0' && c <= '9')
+						b.add(parent, key, Type.NUMBER, number((char) c), null);
+					else
+						throw error(c == -1 ? "unexpected end of input"
+								: "unexpected character '" + (char) c + "'");
+				}
+				// a value is complete; close any containers it completes
+				while (depth > 0) {
+					int top = stack[depth - 1];
+					boolean object = b.type(top) == Type.OBJECT;
+					c = next();
+					if (c == ',') {
+						parent = top;
+						key = object ? key() : null;
+						continue VALUES;
+					}
+					if (c != (object ? '}' : ']'))
+						throw error("expected ',' or '" + (object ? '}' : ']')
+								+ "'");
+					depth--;
+				}
+				if (next() != -1)
+					throw error("text after the end of the document");
+				return new JsonTree(b);
+			}
+		}
+
+		/**
+		 * Reads an object member's key and the colon following it.
+		 */
+		private String key() throws IOException {
+			if (next() != '"')
+				throw error("expected a key");
+			String key = string();
+			if (next() != ':')
+				throw error("expected ':'");
+			return key;
+		}
+
+		/**
+		 * Reads the rest of a string whose opening quote has been read.
+		 */
+		private String string() throws IOException {
+			text.setLength(0);
+			while (true) {
+				int c = read();
+				if (c == '"')
+					return text.toString();
+				if (c == -1)
+					throw error("unterminated string");
+				if (c < ' ')
+					throw error("control character in string");
+				if (c != '\\') {
+					text.append((char) c);
+					continue;
+				}
+				c = read();
+				switch (c) {
+				case '"':
+				case '\\':
+				case '/':
+					text.append((char) c);
+					break;
+				case 'b':
+					text.append('\b');
+					break;
+				case 'f':
+					text.append('\f');
+					break;
+				case 'n':
+					text.append('\n');
+					break;
+				case 'r':
+					text.append('\r');
+					break;
+				case 't':
+					text.append('\t');
+					break;
+				case 'u':
+					int u = 0;
+					for (int i = 0; i < 4; i++) {
+						int d = Character.digit(read(), 16);
+						if (d == -1)
+							throw error("bad unicode escape");
+						u = u * 16 + d;
+					}
+					text.append((char) u);
+					break;
+				default:
+					throw error("bad escape");
+				}
+			}
+		}
+
+		/**
+		 * Reads the rest of a number whose first character has been read.
+		 */
+		private Number number(char first) throws IOException {
+			text.setLength(0);
+			text.append(first);
+			boolean integral = true;
+			while (true) {
+				int c = read();
+				if (c != -1)
+					position--;
+				if (c >= '0' && c <= '9' || c == '-' || c == '+')
+					text.append((char) read());
+				else if (c == '.' || c == 'e' || c == 'E') {
+					integral = false;
+					text.append((char) read());
+				} else
+					break;
+			}
+			String s = text.toString();
+			if (integral) {
+				try {
+					return Long.valueOf(s);
+				} catch (NumberFormatException e) {
+					// too large for a long, or malformed
+				}
+			}
+			try {
+				return Double.valueOf(s);
+			} catch (NumberFormatException e) {
+				throw error("bad number " + s);
+			}
+		}
+
+		private void literal(String rest) throws IOException {
+			for (int i = 0; i < rest.length(); i++) {
+				if (read() != rest.charAt(i))
+					throw error("bad literal");
+			}
+		}
+
+		/**
+		 * @return the next character that isn't whitespace, or -1 at the end
+		 *         of the input
+		 */
+		private int next() throws IOException {
+			while (true) {
+				int c = read();
+				if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+					return c;
+			}
+		}
+
+		/**
+		 * Skips whitespace and returns the next character without reading
+		 * it.
+		 */
+		private int peek() throws IOException {
+			int c = next();
+			if (c != -1)
+				position--;
+			return c;
+		}
+
+		private int read() throws IOException {
+			if (position == limit) {
+				offset += limit;
+				limit = in.read(buffer, 0, buffer.length);
+				position = 0;
+				if (limit <= 0) {
+					limit = 0;
+					return -1;
+				}
+			}
+			return buffer[position++];
+		}
+
+		private PathException error(String message) {
+			return new PathException("malformed JSON at character "
+					+ (offset + position) + ": " + message);
+		}
+	}
+}
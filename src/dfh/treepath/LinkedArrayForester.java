@@ -0,0 +1,77 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+/**
+ * An {@link ArrayForester} for trees whose nodes hold links to their parents.
+ * An extension implements {@link #parentOf(Object)} to follow the links, so
+ * the forester's indices need not record the parents, and
+ * {@link #index(Object)} produces a plain {@link Index}. For example
+ *
+ * <pre>
+ * class ElementForester extends LinkedArrayForester&lt;Element&gt; {
+ * 	protected Element[] childArray(Element e) {
+ * 		return e.children;
+ * 	}
+ *
+ * 	protected String tag(Element e) {
+ * 		return e.tag;
+ * 	}
+ *
+ * 	protected Element parentOf(Element e) {
+ * 		return e.parent;
+ * 	}
+ * }
+ * </pre>
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            a type of tree node
+ */
+public abstract class LinkedArrayForester<N> extends ArrayForester<N> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Delegates to {@link ArrayForester#ArrayForester(NodeTest...)}.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public LinkedArrayForester(NodeTest<N>... ignore) {
+		super(ignore);
+	}
+
+	/**
+	 * Returns the parent of a node by way of the node's own link to it.
+	 *
+	 * @param n
+	 *            a node
+	 * @return the parent of n; null if n is a root
+	 */
+	protected abstract N parentOf(N n);
+
+	/**
+	 * Follows the node's link to its parent.
+	 */
+	@Override
+	protected N parent(N n, Index<N> i) {
+		return parentOf(n);
+	}
+
+	/**
+	 * Produces a plain {@link Index}, which records nothing but the root.
+	 */
+	@Override
+	public Index<N> index(N root) {
+		return new Index<N>(root, this);
+	}
+}
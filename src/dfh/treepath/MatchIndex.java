@@ -0,0 +1,197 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import dfh.grammar.Match;
+import dfh.grammar.Rule;
+
+/**
+ * {@link Index} for {@link Match} trees. As it walks the tree it records each
+ * node's kids, so the node tests a {@link MatchPath} ignores are run once per
+ * node rather than each time an axis visits the node's parent. It also holds
+ * the text matched by the root, so that nodes' text can be examined without
+ * calling {@link Match#group()} on each; see {@link #text(Match)}.
+ * <p>
+ * The index numbers its nodes and groups them by the {@link Rule} that
+ * generated them. As a node's labels belong to its rule, a label step such as
+ * {@code //NP} or {@code //~P$~} is decided by testing one node of each rule,
+ * and the nodes of the rules that pass are found by lookup.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+class MatchIndex extends Index<Match> {
+	/**
+	 * The text matched by the root.
+	 */
+	private final String text;
+	/**
+	 * The offset of {@link #text} in the matched sequence.
+	 */
+	private final int offset;
+	/**
+	 * Read-only, array-backed lists of each node's kids.
+	 */
+	private final Map<Match, List<Match>> kids = new IdentityHashMap<Match, List<Match>>();
+
+	/**
+	 * The postorder numbers of the nodes generated by each rule, built when
+	 * first needed. Threads racing to build it build the same map.
+	 */
+	private volatile Map<Rule, int[]> rules;
+	/**
+	 * Postings by label and by label pattern, gathered as they are needed.
+	 */
+	private final ConcurrentMap<String, int[]> tagPostings = new ConcurrentHashMap<String, int[]>(),
+			patternPostings = new ConcurrentHashMap<String, int[]>();
+
+	MatchIndex(Match root, MatchPath f) {
+		super(root, f);
+		text = root.group();
+		offset = root.start();
+	}
+
+	@Override
+	protected void walk(Match n) {
+		List<Match> list = f.kids(n, this);
+		kids.put(n, list.isEmpty() ? Collections.<Match> emptyList()
+				: Collections.unmodifiableList(Arrays.asList(list
+						.toArray(new Match[list.size()]))));
+		super.walk(n);
+	}
+
+	@Override
+	protected List<Match> kids(Match n) {
+		return kids.get(n);
+	}
+
+	@Override
+	protected boolean numberNodes() {
+		return true;
+	}
+
+	@Override
+	int[] postings(NodeTest<Match> t) {
+		ConcurrentMap<String, int[]> cache;
+		String key;
+		if (t instanceof TagTest<?>) {
+			cache = tagPostings;
+			key = ((TagTest<Match>) t).tag;
+		} else if (t instanceof PatternTest<?>) {
+			cache = patternPostings;
+			Pattern p = ((PatternTest<Match>) t).pattern;
+			key = p.flags() + "/" + p.pattern();
+		} else
+			return null;
+		int[] postings = cache.get(key);
+		if (postings == null) {
+			postings = postings(rules(), t);
+			cache.put(key, postings);
+		}
+		return postings;
+	}
+
+	/**
+	 * @param rules
+	 *            postings by rule
+	 * @param t
+	 *            a label test
+	 * @return the numbers of the nodes of those rules whose first node passes
+	 *         t, in order
+	 */
+	private int[] postings(Map<Rule, int[]> rules, NodeTest<Match> t) {
+		List<int[]> passing = new ArrayList<int[]>();
+		int size = 0;
+		for (int[] numbers : rules.values()) {
+			if (t.passes(postorderNode(numbers[0]), this)) {
+				passing.add(numbers);
+				size += numbers.length;
+			}
+		}
+		if (passing.size() == 1)
+			return passing.get(0);
+		int[] postings = new int[size];
+		int k = 0;
+		for (int[] numbers : passing) {
+			System.arraycopy(numbers, 0, postings, k, numbers.length);
+			k += numbers.length;
+		}
+		Arrays.sort(postings);
+		return postings;
+	}
+
+	/**
+	 * @return the postorder numbers of each rule's nodes
+	 */
+	private Map<Rule, int[]> rules() {
+		Map<Rule, int[]> rules = this.rules;
+		if (rules == null) {
+			Map<Rule, int[]> counts = new IdentityHashMap<Rule, int[]>();
+			int size = postorderNumber(root) + 1;
+			for (int k = 0; k < size; k++) {
+				Rule r = postorderNode(k).rule();
+				int[] count = counts.get(r);
+				if (count == null)
+					counts.put(r, count = new int[1]);
+				count[0]++;
+			}
+			rules = new IdentityHashMap<Rule, int[]>(counts.size());
+			for (int k = 0; k < size; k++) {
+				Rule r = postorderNode(k).rule();
+				int[] numbers = rules.get(r);
+				if (numbers == null)
+					rules.put(r, numbers = new int[counts.get(r)[0]]);
+				numbers[numbers.length - counts.get(r)[0]--] = k;
+			}
+			this.rules = rules;
+		}
+		return rules;
+	}
+
+	/**
+	 * Returns a node's text as a view of the text matched by the root.
+	 * 
+	 * @param n
+	 *            a node
+	 * @return the text n matched, uncopied where n lies within the root
+	 */
+	CharSequence text(Match n) {
+		int start = n.start() - offset, end = n.end() - offset;
+		if (start < 0 || end > text.length())
+			return n.group();
+		return new TextView(text, start, end);
+	}
+
+	/**
+	 * Determines, without copying the text, whether a node's text consists of
+	 * whitespace alone.
+	 *
+	 * @param n
+	 *            a node
+	 * @return whether n matched one or more whitespace characters and nothing
+	 *         else
+	 */
+	boolean whitespace(Match n) {
+		int start = n.start() - offset, end = n.end() - offset;
+		if (start < 0 || end > text.length())
+			return MatchPath.whitespace(n.group(), 0, n.length());
+		return MatchPath.whitespace(text, start, end);
+	}
+}
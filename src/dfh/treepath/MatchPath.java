@@ -8,8 +8,9 @@
  */
 package dfh.treepath;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
@@ -45,15 +46,19 @@ public class MatchPath extends FunctionalForester<Match> {
 		}
 	};
 	/**
-	 * {@link NodeTest} matching nodes whose group contains only whitespace.
+	 * {@link NodeTest} matching nodes whose group contains only whitespace --
+	 * the characters matched by {@code \s} in a {@link Pattern}. With the
+	 * index of a {@link MatchPath} this examines the text in place rather than
+	 * copying it out of the match.
 	 */
 	public static final NodeTest<Match> whitespaceNT = new NodeTest<Match>() {
 		private static final long serialVersionUID = 1L;
-		private Pattern p = Pattern.compile("\\s++");
 
 		@Override
 		public boolean passes(Match n, Index<Match> i) {
-			return p.matcher(n.group()).matches();
+			if (i instanceof MatchIndex)
+				return ((MatchIndex) i).whitespace(n);
+			return whitespace(n.group(), 0, n.length());
 		}
 	};
 	/**
@@ -155,14 +160,51 @@ public class MatchPath extends FunctionalForester<Match> {
 	}
 
 	/**
-	 * Returns {@link Match#children()} as a list.
+	 * Determines whether a span of text is non-empty and consists of nothing
+	 * but the whitespace characters {@code [ \t\n\x0B\f\r]}.
+	 * 
+	 * @param s
+	 *            text
+	 * @param start
+	 *            start of the span
+	 * @param end
+	 *            end of the span
+	 * @return whether the span is whitespace
+	 */
+	static boolean whitespace(CharSequence s, int start, int end) {
+		if (start == end)
+			return false;
+		for (int k = start; k < end; k++) {
+			switch (s.charAt(k)) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\u000B':
+			case '\f':
+			case '\r':
+				continue;
+			default:
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a read-only view of {@link Match#children()} as a list.
 	 */
 	@Override
 	protected List<Match> children(Match n, Index<Match> i) {
-		List<Match> children = new ArrayList<Match>(n.children().length);
-		for (Match m : n.children())
-			children.add(m);
-		return children;
+		return Collections.unmodifiableList(Arrays.asList(n.children()));
+	}
+
+	/**
+	 * Returns an index that records the kids of each node as it walks the
+	 * tree, so nodes are tested against the node types to ignore only once.
+	 */
+	@Override
+	public Index<Match> index(Match root) {
+		return new MatchIndex(root, this);
 	}
 
 	/**
@@ -271,6 +313,20 @@ public class MatchPath extends FunctionalForester<Match> {
 		return m.group();
 	}
 
+	/**
+	 * Evaluates {@code @group}. Where the index is one made by
+	 * {@link #index(Match)} the value is a view of the text matched by the
+	 * root rather than a copy, so comparisons such as {@code [@group = 'foo']}
+	 * and the {@code s:} attributes that inspect a string allocate no
+	 * substrings.
+	 */
+	@ViewAttribute("group")
+	CharSequence groupView(Match m, Collection<Match> c, Index<Match> i) {
+		if (i instanceof MatchIndex)
+			return ((MatchIndex) i).text(m);
+		return m.group();
+	}
+
 	/**
 	 * Returns the label of the {@link Rule} generating the {@link Match}. For
 	 * example, if the match was generated by
@@ -42,13 +42,15 @@ public class ParentIndex<N> extends Index<N> {
 	}
 
 	/**
-	 * Returns the parent of a node.
+	 * Returns the parent of a node. If the index was restored from a snapshot
+	 * the parent is the one the snapshot records.
 	 * 
 	 * @param n
 	 *            a node
 	 * @return the parent of n
 	 */
 	public N parent(N n) {
-		return parentIndex.get(n);
+		N parent = parentIndex.get(n);
+		return parent == null ? restoredParent(n) : parent;
 	}
 }
@@ -10,10 +10,19 @@ package dfh.treepath;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import dfh.treepath.ForwardSelector.Relation;
 
 /**
  * A compiled tree path expression.
@@ -25,6 +34,7 @@ import java.util.Set;
  */
 public class Path<N> implements Serializable {
 	private static final long serialVersionUID = 1L;
+
 	private final Selector<N>[][] selectors;
 	private final Forester<N> f;
 
@@ -33,6 +43,13 @@ public class Path<N> implements Serializable {
 		this.selectors = selectors;
 	}
 
+	/**
+	 * @return the steps of each fork of the path
+	 */
+	Selector<N>[][] selectors() {
+		return selectors;
+	}
+
 	/**
 	 * Selects nodes in the tree that match the path. If it is not a relative
 	 * path and the nodes in the tree do not know their own parents, this match
@@ -75,7 +92,65 @@ public class Path<N> implements Serializable {
 			throw new PathException("select called on null node");
 		if (!i.indexed())
 			i.index();
-		return new ArrayList<N>(sel(n, i));
+		boolean outer = i.beginQuery();
+		try {
+			return new ArrayList<N>(sel(n, i));
+		} finally {
+			if (outer)
+				i.endQuery();
+		}
+	}
+
+	/**
+	 * Evaluates this path where it is nested in a predicate or attribute
+	 * argument of another. Within a query the result is remembered for each
+	 * context node, so the path is evaluated only once per node however many
+	 * times it occurs in the query or the node is reached; see
+	 * {@link Forester#path(String)}.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param index
+	 *            tree index
+	 * @return the nodes selected; as attribute methods may modify their
+	 *         arguments, each call returns a copy of the remembered nodes
+	 */
+	Collection<N> nested(N n, Index<N> index) {
+		Map<N, Object> results = index.subpathResults(this);
+		if (results == null)
+			return sel(n, index);
+		Object o = results.get(n);
+		if (!(o instanceof Collection<?>)) {
+			o = sel(n, index);
+			results.put(n, o);
+		}
+		@SuppressWarnings("unchecked")
+		Collection<N> c = (Collection<N>) o;
+		return new ArrayList<N>(c);
+	}
+
+	/**
+	 * Like {@link #nested(Object, Index)} but only determines whether any node
+	 * is selected, remembering no more than that.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param index
+	 *            tree index
+	 * @return whether any node is selected
+	 */
+	boolean selectsAny(N n, Index<N> index) {
+		Map<N, Object> results = index.subpathResults(this);
+		if (results == null)
+			return !sel(n, index).isEmpty();
+		Object o = results.get(n);
+		if (o instanceof Boolean)
+			return (Boolean) o;
+		if (o != null)
+			return !((Collection<?>) o).isEmpty();
+		boolean any = !sel(n, index).isEmpty();
+		results.put(n, any);
+		return any;
 	}
 
 	Collection<N> sel(N n, Index<N> index) {
@@ -90,6 +165,8 @@ public class Path<N> implements Serializable {
 		Collection<N> next = fork[stepIndex++].select(n, index);
 		if (stepIndex == fork.length)
 			return next;
+		if (index.numbered() && next.size() > 1)
+			return sel(next, index, fork, stepIndex);
 		Set<N> selection = new LinkedHashSet<N>();
 		for (N c : next) {
 			selection.addAll(sel(c, index, fork, stepIndex));
@@ -97,6 +174,41 @@ public class Path<N> implements Serializable {
 		return selection;
 	}
 
+	/**
+	 * Applies the remainder of a fork to a set of context nodes, joining
+	 * descendant steps with {@link StructuralJoin} and applying other steps to
+	 * each context node in turn.
+	 * 
+	 * @param context
+	 *            context nodes, in order
+	 * @param index
+	 *            a numbered index
+	 * @param fork
+	 *            steps
+	 * @param stepIndex
+	 *            the next step
+	 * @return the selection
+	 */
+	Collection<N> sel(Collection<N> context, Index<N> index,
+			Selector<N>[] fork, int stepIndex) {
+		while (stepIndex < fork.length
+				&& StructuralJoin.joinable(fork[stepIndex])) {
+			List<N> joined = StructuralJoin.join(context, fork[stepIndex],
+					index);
+			if (joined == null)
+				break;
+			context = joined;
+			stepIndex++;
+		}
+		if (stepIndex == fork.length)
+			return context;
+		Set<N> selection = new LinkedHashSet<N>();
+		for (N c : context) {
+			selection.addAll(sel(c, index, fork, stepIndex));
+		}
+		return selection;
+	}
+
 	/**
 	 * Selects the first node in the tree that matches the path. If it is not a
 	 * relative path and the nodes in the tree do not know their own parents,
@@ -119,10 +231,16 @@ public class Path<N> implements Serializable {
 			throw new PathException("select called on null node");
 		if (!i.indexed())
 			i.index();
-		Collection<N> c = sel(n, i);
-		if (c.isEmpty())
-			return null;
-		return c.iterator().next();
+		boolean outer = i.beginQuery();
+		try {
+			Collection<N> c = sel(n, i);
+			if (c.isEmpty())
+				return null;
+			return c.iterator().next();
+		} finally {
+			if (outer)
+				i.endQuery();
+		}
 	}
 
 	/**
@@ -139,4 +257,374 @@ public class Path<N> implements Serializable {
 	public N first(N n) {
 		return first(n, f.index(n));
 	}
+
+	/**
+	 * Passes the nodes in the tree that match the path to a {@link Consumer}
+	 * as they are found, rather than collecting them. This method is like
+	 * {@link #forEach(Object, Index, Consumer)} but constructs a fresh index.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param r
+	 *            receives the nodes
+	 */
+	public void forEach(N n, Consumer<? super N> r) {
+		forEach(n, f.index(n), r);
+	}
+
+	/**
+	 * Passes the nodes in the tree that match the path to a {@link Consumer}
+	 * as they are found, rather than collecting them. Each node is received
+	 * once, in the order {@link #select(Object, Index)} would return them.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param i
+	 *            an index of the tree
+	 * @param r
+	 *            receives the nodes
+	 */
+	public void forEach(N n, Index<N> i, final Consumer<? super N> r) {
+		forEachWhile(n, i, new java.util.function.Predicate<N>() {
+			@Override
+			public boolean test(N n) {
+				r.accept(n);
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Passes the nodes in the tree that match the path to a
+	 * {@link java.util.function.Predicate} as they are found until it returns
+	 * false. This method is like
+	 * {@link #forEachWhile(Object, Index, java.util.function.Predicate)} but
+	 * constructs a fresh index.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param v
+	 *            visits the nodes, returning whether to go on
+	 * @return whether every node selected was visited
+	 */
+	public boolean forEachWhile(N n, java.util.function.Predicate<? super N> v) {
+		return forEachWhile(n, f.index(n), v);
+	}
+
+	/**
+	 * Passes the nodes in the tree that match the path to a
+	 * {@link java.util.function.Predicate} as they are found until it returns
+	 * false, whereupon evaluation stops. Each node is visited once, in the
+	 * order {@link #select(Object, Index)} would return them.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param i
+	 *            an index of the tree
+	 * @param v
+	 *            visits the nodes, returning whether to go on
+	 * @return whether every node selected was visited
+	 */
+	public boolean forEachWhile(N n, Index<N> i,
+			java.util.function.Predicate<? super N> v) {
+		if (n == null)
+			throw new PathException("select called on null node");
+		if (!i.indexed())
+			i.index();
+		boolean outer = i.beginQuery();
+		try {
+			Pusher p = new Pusher(v);
+			for (Selector<N>[] fork : selectors) {
+				if (!push(n, i, fork, 0, p))
+					return false;
+			}
+			return true;
+		} finally {
+			if (outer)
+				i.endQuery();
+		}
+	}
+
+	/**
+	 * Counts the nodes in the tree that match the path. This method is like
+	 * {@link #count(Object, Index)} but constructs a fresh index.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @return the number of nodes {@link #select(Object)} would return
+	 */
+	public int count(N n) {
+		return count(n, f.index(n));
+	}
+
+	/**
+	 * Counts the nodes in the tree that match the path without collecting
+	 * them. Where the selections of the final step cannot overlap, as when it
+	 * selects children, no node is remembered. Where the index has numbered
+	 * its nodes, a final child, descendant, or anywhere step without
+	 * predicates is counted from ranges of numbers, and, if it tests a tag the
+	 * index posts, from its postings, without visiting the nodes at all; see
+	 * {@link Index#numberNodes()} and {@link Index#postings(NodeTest)}.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param i
+	 *            an index of the tree
+	 * @return the number of nodes {@link #select(Object, Index)} would return
+	 */
+	public int count(N n, Index<N> i) {
+		if (n == null)
+			throw new PathException("select called on null node");
+		if (!i.indexed())
+			i.index();
+		boolean outer = i.beginQuery();
+		try {
+			if (selectors.length == 1)
+				return count(n, i, selectors[0]);
+			// forks may overlap
+			Pusher p = new Pusher(null);
+			for (Selector<N>[] fork : selectors)
+				push(n, i, fork, 0, p);
+			return p.count;
+		} finally {
+			if (outer)
+				i.endQuery();
+		}
+	}
+
+	/**
+	 * Counts the nodes a single fork selects.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param index
+	 *            tree index
+	 * @param fork
+	 *            steps
+	 * @return the number of nodes selected
+	 */
+	@SuppressWarnings("unchecked")
+	private int count(N n, Index<N> index, Selector<N>[] fork) {
+		int end = fork.length - 1;
+		Selector<N> last = fork[end];
+		Collection<N> context = end == 0 ? Collections.singleton(n) : sel(n,
+				index, Arrays.copyOf(fork, end), 0);
+		if (index.numbered()) {
+			int count = StructuralJoin.count(context, last, index);
+			if (count != -1)
+				return count;
+		}
+		if (last instanceof ForwardSelector<?>
+				&& ((ForwardSelector<N>) last).relation() == Relation.child) {
+			int count = 0;
+			for (N c : context)
+				count += last.select(c, index).size();
+			return count;
+		}
+		Pusher p = new Pusher(null);
+		if (index.numbered() && context.size() > 1)
+			push(context, index, fork, end, p);
+		else {
+			for (N c : context)
+				push(c, index, fork, end, p);
+		}
+		return p.count;
+	}
+
+	/**
+	 * Passes nodes to a {@link java.util.function.Predicate}, skipping those
+	 * already passed, and counts them. The nodes come in batches, each the
+	 * selection of a final step from a single context node and so free of
+	 * duplicates. Nodes are only remembered once a second batch arrives, so a
+	 * path whose selection is a single batch is pushed without keeping any of
+	 * it.
+	 */
+	private class Pusher {
+		/**
+		 * Receives the nodes; if null, they are only counted.
+		 */
+		private final java.util.function.Predicate<? super N> v;
+		private Collection<N> first;
+		private Set<N> seen;
+		int count;
+
+		Pusher(java.util.function.Predicate<? super N> v) {
+			this.v = v;
+		}
+
+		/**
+		 * @param batch
+		 *            nodes selected by a final step
+		 * @return whether to continue
+		 */
+		boolean push(Collection<N> batch) {
+			if (batch.isEmpty())
+				return true;
+			if (seen == null) {
+				if (first == null) {
+					first = batch;
+					count += batch.size();
+					if (v != null) {
+						for (N n : batch) {
+							if (!v.test(n))
+								return false;
+						}
+					}
+					return true;
+				}
+				seen = new HashSet<N>(first);
+				first = null;
+			}
+			for (N n : batch) {
+				if (seen.add(n)) {
+					count++;
+					if (v != null && !v.test(n))
+						return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Like {@link #sel(Object, Index, Selector[], int)} but pushes what the
+	 * final step selects rather than collecting it.
+	 * 
+	 * @return whether to continue
+	 */
+	private boolean push(N n, Index<N> index, Selector<N>[] fork,
+			int stepIndex, Pusher p) {
+		Collection<N> next = fork[stepIndex++].select(n, index);
+		if (stepIndex == fork.length)
+			return p.push(next);
+		if (index.numbered() && next.size() > 1)
+			return push(next, index, fork, stepIndex, p);
+		for (N c : next) {
+			if (!push(c, index, fork, stepIndex, p))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Like {@link #sel(Collection, Index, Selector[], int)} but pushes what
+	 * the final step selects rather than collecting it.
+	 * 
+	 * @return whether to continue
+	 */
+	private boolean push(Collection<N> context, Index<N> index,
+			Selector<N>[] fork, int stepIndex, Pusher p) {
+		while (stepIndex < fork.length
+				&& StructuralJoin.joinable(fork[stepIndex])) {
+			List<N> joined = StructuralJoin.join(context, fork[stepIndex],
+					index);
+			if (joined == null)
+				break;
+			context = joined;
+			stepIndex++;
+		}
+		if (stepIndex == fork.length)
+			return p.push(context);
+		for (N c : context) {
+			if (!push(c, index, fork, stepIndex, p))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a sequential, ordered {@link Stream} of the nodes in the tree
+	 * that match the path. This method is like
+	 * {@link #stream(Object, Index, boolean)} but constructs a fresh index.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @return the nodes matching the path
+	 */
+	public Stream<N> stream(N n) {
+		return stream(n, f.index(n), true);
+	}
+
+	/**
+	 * Returns a sequential, ordered {@link Stream} of the nodes in the tree
+	 * that match the path, in the order of {@link #select(Object, Index)}. See
+	 * {@link #stream(Object, Index, boolean)}.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param i
+	 *            an index of the tree
+	 * @return the nodes matching the path
+	 */
+	public Stream<N> stream(N n, Index<N> i) {
+		return stream(n, i, true);
+	}
+
+	/**
+	 * Returns a sequential {@link Stream} of the nodes in the tree that match
+	 * the path. Nodes are selected as the stream is consumed. If the stream is
+	 * made parallel, the work is split by subtree wherever the steps remaining
+	 * only descend -- child, descendant, and self steps whose predicates need
+	 * nothing but the node -- so that both the walk and the predicates are
+	 * spread across threads. Other steps are evaluated whole, as by
+	 * {@link #select(Object, Index)}.
+	 * <p>
+	 * An ordered stream returns the nodes in the order of
+	 * {@link #select(Object, Index)}; to keep this order, a path with several
+	 * forks is not split. An unordered stream splits forks as well, and skips
+	 * a node another part of the stream has already returned, so each node is
+	 * returned once but in no particular order.
+	 * 
+	 * @param n
+	 *            a node in the tree; if this is not the root node and the
+	 *            tree's nodes do not know their own parents -- see
+	 *            {@link ParentIndex} -- this will be the de-facto root node
+	 * @param i
+	 *            an index of the tree
+	 * @param ordered
+	 *            whether the stream must return nodes in order
+	 * @return the nodes matching the path
+	 */
+	public Stream<N> stream(N n, Index<N> i, boolean ordered) {
+		if (n == null)
+			throw new PathException("select called on null node");
+		if (!i.indexed())
+			i.index();
+		return StreamSupport.stream(new PathSpliterator<N>(this, n, i,
+				ordered), false);
+	}
+
+	/**
+	 * Creates a {@link StreamingEvaluator} which will evaluate this path
+	 * against trees presented as sequences of start and end events, passing
+	 * matches to the given listener. This is only possible for paths whose
+	 * steps walk forward axes and whose predicates need nothing but the node;
+	 * see {@link StreamingEvaluator}.
+	 * 
+	 * @param listener
+	 *            receives the nodes matched
+	 * @return an evaluator for this path
+	 * @throws PathException
+	 *             if the path cannot be evaluated by streaming
+	 */
+	public StreamingEvaluator<N> streamingEvaluator(
+			StreamingEvaluator.Listener<N> listener) {
+		return new StreamingEvaluator<N>(f, selectors, listener);
+	}
 }
@@ -0,0 +1,448 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import dfh.treepath.ForwardSelector.Relation;
+import dfh.treepath.PathGrammar.Axis;
+
+/**
+ * A {@link Spliterator} over the nodes a {@link Path} selects, backing
+ * {@link Path#stream(Object, Index, boolean)}.
+ * <p>
+ * The work remaining is a queue of tasks, each applying the rest of a fork to
+ * a context node. Where the steps left only descend -- child, descendant, and
+ * self steps -- a task's nodes lie in its context node's subtree, so tasks on
+ * disjoint subtrees select disjoint nodes, and the queue can be split between
+ * them. A task is broken up by subtree: a child step into a task for each
+ * child selected, a descendant step into a task for each subtree under the
+ * context node, with the context node's own task, if it is selected, after
+ * them, as postorder requires. A descendant step can be broken up only if its
+ * predicates need nothing but the node; see {@link Predicate#local()}. Tasks
+ * that cannot be broken up are evaluated whole, as {@link Path} would evaluate
+ * them.
+ * <p>
+ * Tasks are broken up as they are reached, so a sequential stream walks the
+ * tree rather than collecting the selection first. With a numbered index,
+ * where the size of each subtree is known, small subtrees are evaluated whole
+ * instead, and sizes are estimated by counting the nodes under the tasks
+ * queued.
+ * <p>
+ * An ordered spliterator returns the nodes in the order of
+ * {@link Path#select(Object, Index)}. This order can only be kept across
+ * splits where the splits cannot select the same node, so ordered
+ * spliterators for paths with several forks do not split. Unordered ones
+ * split the forks among themselves and share a concurrent set to skip nodes
+ * another has already returned.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            the type of node in the tree
+ */
+class PathSpliterator<N> implements Spliterator<N> {
+	/**
+	 * With a numbered index, subtrees no larger than this are evaluated whole
+	 * by {@link #tryAdvance(Consumer)} rather than broken up.
+	 */
+	private static final int WHOLE = 1024;
+
+	/**
+	 * Work remaining: apply steps {@link #step} and on of fork {@link #fork}
+	 * to {@link #node}, or, for a subtree task, step {@link #step} to the
+	 * descendants of {@link #node} and the node itself, and the steps after
+	 * it to those selected, or, for a node alone, return it.
+	 */
+	private static class Task<N> {
+		static final int EVAL = 0, SUBTREE = 1, NODE = 2;
+		final int kind;
+		final N node;
+		final int fork, step;
+
+		Task(int kind, N node, int fork, int step) {
+			this.kind = kind;
+			this.node = node;
+			this.fork = fork;
+			this.step = step;
+		}
+	}
+
+	private final Path<N> path;
+	private final Selector<N>[][] selectors;
+	private final Index<N> index;
+	private final boolean ordered;
+	/**
+	 * For each fork and step, whether it and all the steps after it select
+	 * only within the context node's subtree.
+	 */
+	private final boolean[][] contained;
+	/**
+	 * For each fork and step, the relation the nodes it selects bear to its
+	 * context node, if it is a forward step.
+	 */
+	private final Relation[][] relations;
+	/**
+	 * Nodes already returned, where forks may overlap.
+	 */
+	private final Set<N> returned;
+	private final Deque<Task<N>> tasks = new ArrayDeque<Task<N>>();
+	/**
+	 * Nodes selected by a task evaluated whole, not yet returned.
+	 */
+	private Iterator<N> buffer;
+	/**
+	 * Estimated number of nodes remaining where the index is not numbered.
+	 */
+	private long estimate;
+
+	PathSpliterator(Path<N> path, N n, Index<N> index, boolean ordered) {
+		this.path = path;
+		this.index = index;
+		this.ordered = ordered;
+		selectors = path.selectors();
+		contained = new boolean[selectors.length][];
+		relations = new Relation[selectors.length][];
+		for (int f = 0; f < selectors.length; f++) {
+			Selector<N>[] fork = selectors[f];
+			contained[f] = new boolean[fork.length];
+			relations[f] = new Relation[fork.length];
+			boolean c = true;
+			for (int s = fork.length - 1; s >= 0; s--) {
+				boolean root = s == 0 && index.isRoot(n);
+				relations[f][s] = relation(fork[s], root);
+				c &= contained(fork[s], relations[f][s], root);
+				contained[f][s] = c;
+			}
+			tasks.add(new Task<N>(Task.EVAL, n, f, 0));
+		}
+		if (selectors.length == 1)
+			returned = null;
+		else if (ordered)
+			returned = new HashSet<N>();
+		else
+			returned = Collections
+					.newSetFromMap(new ConcurrentHashMap<N, Boolean>());
+		estimate = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Makes the prefix split off another spliterator.
+	 */
+	private PathSpliterator(PathSpliterator<N> other) {
+		path = other.path;
+		selectors = other.selectors;
+		index = other.index;
+		ordered = other.ordered;
+		contained = other.contained;
+		relations = other.relations;
+		returned = other.returned;
+	}
+
+	/**
+	 * @param s
+	 *            a step
+	 * @param root
+	 *            whether the step is applied to the root
+	 * @return the relation the nodes s selects bear to its context node; null
+	 *         if it is not a forward step
+	 */
+	private static <N> Relation relation(Selector<N> s, boolean root) {
+		if (!(s instanceof ForwardSelector<?>))
+			return null;
+		Relation r = ((ForwardSelector<N>) s).relation();
+		if (r == null && root && s instanceof AxisSelector<?>)
+			// steps such as /descendant::foo walk their axes from the root
+			r = ((AxisSelector<N>) s).axisRelation();
+		return r;
+	}
+
+	/**
+	 * @param s
+	 *            a step
+	 * @param r
+	 *            its {@link #relation(Selector, boolean) relation}
+	 * @param root
+	 *            whether the step is applied to the root
+	 * @return whether the step selects only within its context node's subtree
+	 */
+	private static <N> boolean contained(Selector<N> s, Relation r,
+			boolean root) {
+		if (r == null)
+			return false;
+		switch (r) {
+		case child:
+		case descendant:
+		case descendantOrSelf:
+			return true;
+		case self:
+			// the root steps, such as /foo, select the root
+			return s instanceof SelfSelector<?> || root;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @param s
+	 *            a descendant step
+	 * @return whether the step can be applied to each subtree separately
+	 */
+	private static <N> boolean local(Selector<N> s) {
+		Predicate<N>[] predicates = s instanceof TestSelector<?> ? ((TestSelector<N>) s).predicates
+				: ((WildcardSelector<N>) s).predicates;
+		for (Predicate<N> p : predicates) {
+			if (!p.local())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param t
+	 *            a task
+	 * @return whether the task can be broken into tasks on disjoint subtrees
+	 */
+	private boolean divisible(Task<N> t) {
+		if (t.kind == Task.NODE || !contained[t.fork][t.step])
+			return false;
+		Selector<N>[] fork = selectors[t.fork];
+		Selector<N> s = fork[t.step];
+		if (t.kind == Task.SUBTREE) {
+			// the node's own task would select what those of the subtrees
+			// under it select, unless only child steps remain
+			if (t.step == fork.length - 1 || !passes(t.node, s))
+				return true;
+			for (int j = t.step + 1; j < fork.length; j++) {
+				if (relations[t.fork][j] != Relation.child)
+					return false;
+			}
+			return true;
+		}
+		switch (relations[t.fork][t.step]) {
+		case descendant:
+		case descendantOrSelf:
+			return local(s);
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Replaces a {@link #divisible(Task) divisible} task at the head of the
+	 * queue with the tasks it breaks into.
+	 */
+	private void divide() {
+		Task<N> t = tasks.pollFirst();
+		Selector<N>[] fork = selectors[t.fork];
+		Selector<N> s = fork[t.step];
+		boolean last = t.step == fork.length - 1;
+		Deque<Task<N>> parts = new ArrayDeque<Task<N>>();
+		if (t.kind == Task.SUBTREE) {
+			if (!index.excludes(t.node, ((ForwardSelector<N>) s).test())) {
+				for (N c : index.f.kids(t.node, index))
+					parts.add(new Task<N>(Task.SUBTREE, c, t.fork, t.step));
+				if (passes(t.node, s))
+					parts.add(next(t.node, t.fork, t.step, last));
+			}
+		} else {
+			switch (relations[t.fork][t.step]) {
+			case descendant:
+				for (N c : index.f.kids(t.node, index))
+					parts.add(new Task<N>(Task.SUBTREE, c, t.fork, t.step));
+				break;
+			case descendantOrSelf:
+				parts.add(new Task<N>(Task.SUBTREE, t.node, t.fork, t.step));
+				break;
+			default:
+				for (N c : s.select(t.node, index))
+					parts.add(next(c, t.fork, t.step, last));
+			}
+		}
+		while (!parts.isEmpty())
+			tasks.addFirst(parts.pollLast());
+	}
+
+	/**
+	 * @return the task applying the steps after a step to a node it selected
+	 */
+	private Task<N> next(N n, int fork, int step, boolean last) {
+		return last ? new Task<N>(Task.NODE, n, fork, step) : new Task<N>(
+				Task.EVAL, n, fork, step + 1);
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @param s
+	 *            a descendant step with local predicates
+	 * @return whether the step selects n from above
+	 */
+	private boolean passes(N n, Selector<N> s) {
+		if (!((ForwardSelector<N>) s).test().passes(n, index))
+			return false;
+		if (s instanceof TestSelector<?>) {
+			Collection<N> c = Collections.singletonList(n);
+			for (Predicate<N> p : ((TestSelector<N>) s).predicates) {
+				c = p.filter(c, index);
+				if (c.isEmpty())
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates a task whole.
+	 *
+	 * @param t
+	 *            a task
+	 * @return the nodes it selects, in order
+	 */
+	private Collection<N> evaluate(Task<N> t) {
+		Selector<N>[] fork = selectors[t.fork];
+		if (t.kind == Task.NODE)
+			return Collections.singletonList(t.node);
+		if (t.kind == Task.EVAL)
+			return path.sel(t.node, index, fork, t.step);
+		ForwardSelector<N> s = (ForwardSelector<N>) fork[t.step];
+		Collection<N> context = index.f.axis(t.node, Axis.descendantOrSelf,
+				s.test(), index);
+		if (s instanceof TestSelector<?>) {
+			for (Predicate<N> p : ((TestSelector<N>) s).predicates) {
+				if (context.isEmpty())
+					break;
+				context = p.filter(context, index);
+			}
+		}
+		if (t.step == fork.length - 1 || context.isEmpty())
+			return context;
+		if (index.numbered() && context.size() > 1)
+			return path.sel(context, index, fork, t.step + 1);
+		Set<N> selection = new LinkedHashSet<N>();
+		for (N c : context)
+			selection.addAll(path.sel(c, index, fork, t.step + 1));
+		return selection;
+	}
+
+	/**
+	 * @param t
+	 *            a task
+	 * @return the number of nodes under the task's node, if the index is
+	 *         numbered; -1 otherwise
+	 */
+	private int size(Task<N> t) {
+		if (!index.numbered())
+			return -1;
+		if (t.kind == Task.NODE)
+			return 1;
+		int k = index.postorderNumber(t.node);
+		return k == -1 ? -1 : k - index.subtreeStart(k) + 1;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super N> action) {
+		while (true) {
+			if (buffer != null) {
+				while (buffer.hasNext()) {
+					N n = buffer.next();
+					if (returned == null || returned.add(n)) {
+						action.accept(n);
+						return true;
+					}
+				}
+				buffer = null;
+			}
+			Task<N> t = tasks.peekFirst();
+			if (t == null)
+				return false;
+			if (t.kind == Task.NODE) {
+				tasks.pollFirst();
+				if (returned == null || returned.add(t.node)) {
+					action.accept(t.node);
+					return true;
+				}
+				continue;
+			}
+			boolean outer = index.beginQuery();
+			try {
+				int size = size(t);
+				if (size != -1 && size <= WHOLE || !divisible(t)) {
+					tasks.pollFirst();
+					buffer = evaluate(t).iterator();
+				} else
+					divide();
+			} finally {
+				if (outer)
+					index.endQuery();
+			}
+		}
+	}
+
+	@Override
+	public Spliterator<N> trySplit() {
+		if (ordered && selectors.length > 1)
+			return null;
+		boolean outer = index.beginQuery();
+		try {
+			while (tasks.size() == 1 && divisible(tasks.peekFirst()))
+				divide();
+		} finally {
+			if (outer)
+				index.endQuery();
+		}
+		int size = tasks.size();
+		if (size < 2)
+			return null;
+		PathSpliterator<N> prefix = new PathSpliterator<N>(this);
+		prefix.buffer = buffer;
+		buffer = null;
+		for (int i = size / 2; i > 0; i--)
+			prefix.tasks.addLast(tasks.pollFirst());
+		if (!index.numbered()) {
+			estimate >>>= 1;
+			prefix.estimate = estimate;
+		}
+		return prefix;
+	}
+
+	/**
+	 * With a numbered index, the number of nodes under the tasks remaining;
+	 * otherwise an estimate halved with each split.
+	 */
+	@Override
+	public long estimateSize() {
+		if (!index.numbered())
+			return estimate;
+		long sum = 0;
+		for (Task<N> t : tasks) {
+			int size = size(t);
+			if (size == -1)
+				return Long.MAX_VALUE;
+			sum += size;
+		}
+		return sum;
+	}
+
+	@Override
+	public int characteristics() {
+		return (ordered ? ORDERED : 0) | DISTINCT | NONNULL;
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.regex.Pattern;
+
+/**
+ * {@link NodeTest} implementing a tag pattern such as the "~b~" in
+ * {@code //~b~}. Like {@link TagTest}, it exposes what it tests for so that an
+ * {@link Index} can answer it without testing every node.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            node type
+ */
+class PatternTest<N> implements NodeTest<N> {
+	private static final long serialVersionUID = 1L;
+
+	final Pattern pattern;
+
+	PatternTest(Pattern pattern) {
+		this.pattern = pattern;
+	}
+
+	@Override
+	public boolean passes(N n, Index<N> i) {
+		return i.f.matchesTag(n, pattern);
+	}
+}
@@ -9,7 +9,10 @@
 package dfh.treepath;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 
 import dfh.grammar.Match;
 
@@ -38,4 +41,27 @@ abstract class Predicate<N> implements Serializable {
 	}
 
 	abstract Collection<N> filter(Collection<N> c, Index<N> i);
+
+	/**
+	 * Returns whether the predicate can be decided for a node in isolation:
+	 * that is, whether it contains no positional test, no path, and no
+	 * attribute that is not {@link Attribute#local() local}.
+	 * 
+	 * @return whether the predicate needs nothing but the node itself
+	 */
+	abstract boolean local();
+
+	/**
+	 * Prepares candidates for filters that index into them by position.
+	 * 
+	 * @param c
+	 *            candidate nodes
+	 * @return c itself if it is a {@link RandomAccess} list; otherwise a copy
+	 *         of c that is
+	 */
+	@SuppressWarnings("unchecked")
+	static <N> List<N> list(Collection<N> c) {
+		return c instanceof List<?> && c instanceof RandomAccess ? (List<N>) c
+				: new ArrayList<N>(c);
+	}
 }
@@ -32,24 +32,34 @@ class RootAxisMatching<N> extends AxisSelector<N> {
 			Forester<N> f) {
 		super(axisName, arguments, f);
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
 		}
 	}
 
+	/**
+	 * Returns null: the axis is walked from the root, so the candidates bear
+	 * no fixed relation to the context node.
+	 */
+	@Override
+	public Relation relation() {
+		return null;
+	}
+
 	@Override
 	protected Collection<N> candidates(N n, Index<N> i) {
 		return i.f.axis(i.root, axis, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(i.root, axis, test, i, position);
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
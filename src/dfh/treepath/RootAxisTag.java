@@ -39,9 +39,27 @@ class RootAxisTag<N> extends AxisSelector<N> {
 		};
 	}
 
+	/**
+	 * Returns null: the axis is walked from the root, so the candidates bear
+	 * no fixed relation to the context node.
+	 */
+	@Override
+	public Relation relation() {
+		return null;
+	}
+
 	@Override
 	protected Collection<N> candidates(N n, Index<N> i) {
 		return i.f.axis(i.root, axis, test, i);
 	}
 
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(i.root, axis, test, i, position);
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -28,10 +28,31 @@ class RootAxisWildcard<N> extends AxisSelector<N> {
 		super(axisName, arguments, f);
 	}
 
+	/**
+	 * Returns null: the axis is walked from the root, so the candidates bear
+	 * no fixed relation to the context node.
+	 */
+	@Override
+	public Relation relation() {
+		return null;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	protected Collection<N> candidates(N n, Index<N> i) {
 		return i.f.axis(i.root, axis, (NodeTest<N>) TrueTest.test(), i);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return i.f.axis(i.root, axis, (NodeTest<N>) TrueTest.test(), i,
+				position);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public NodeTest<N> test() {
+		return (NodeTest<N>) TrueTest.test();
+	}
 }
@@ -26,7 +26,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class RootMatching<N> extends TestSelector<N> {
+class RootMatching<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
@@ -34,15 +35,7 @@ class RootMatching<N> extends TestSelector<N> {
 	RootMatching(String pattern, Match arguments, Forester<N> f) {
 		super(arguments, f);
 		try {
-			final Pattern p = Pattern.compile(pattern);
-			test = new NodeTest<N>() {
-				private static final long serialVersionUID = 1L;
-
-				@Override
-				public boolean passes(N n, Index<N> i) {
-					return i.f.matchesTag(n, p);
-				}
-			};
+			test = new PatternTest<N>(Pattern.compile(pattern));
 		} catch (PatternSyntaxException e) {
 			throw new PathException("could not compile " + pattern
 					+ " as a regular expression", e);
@@ -59,4 +52,13 @@ class RootMatching<N> extends TestSelector<N> {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.self;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -14,7 +14,8 @@ import java.util.List;
 
 import dfh.grammar.Match;
 
-class RootSelector<N> extends TestSelector<N> {
+class RootSelector<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	public RootSelector(Match predicates, Forester<N> f) {
@@ -28,4 +29,14 @@ class RootSelector<N> extends TestSelector<N> {
 		return list;
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.self;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public NodeTest<N> test() {
+		return (NodeTest<N>) TrueTest.test();
+	}
 }
@@ -24,7 +24,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class RootTag<N> extends TestSelector<N> {
+class RootTag<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	private final NodeTest<N> test;
@@ -51,4 +52,13 @@ class RootTag<N> extends TestSelector<N> {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.self;
+	}
+
+	@Override
+	public NodeTest<N> test() {
+		return test;
+	}
 }
@@ -23,7 +23,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class RootWildcard<N> extends TestSelector<N> {
+class RootWildcard<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	RootWildcard(Match arguments, Forester<N> f) {
@@ -37,4 +38,14 @@ class RootWildcard<N> extends TestSelector<N> {
 		return list;
 	}
 
+	@Override
+	public Relation relation() {
+		return Relation.self;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public NodeTest<N> test() {
+		return (NodeTest<N>) TrueTest.test();
+	}
 }
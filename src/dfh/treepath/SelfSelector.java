@@ -22,7 +22,8 @@ import dfh.grammar.Match;
  * 
  * @param <N>
  */
-class SelfSelector<N> extends TestSelector<N> {
+class SelfSelector<N> extends TestSelector<N> implements
+		ForwardSelector<N> {
 	private static final long serialVersionUID = 1L;
 
 	public SelfSelector(Match predicates, Forester<N> f) {
@@ -35,4 +36,15 @@ class SelfSelector<N> extends TestSelector<N> {
 		list.add(n);
 		return list;
 	}
+
+	@Override
+	public Relation relation() {
+		return Relation.self;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public NodeTest<N> test() {
+		return (NodeTest<N>) TrueTest.test();
+	}
 }
@@ -0,0 +1,278 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import dfh.treepath.ForwardSelector.Relation;
+
+/**
+ * Evaluates a {@link Path} against a tree presented as a sequence of start and
+ * end events, as with SAX, rather than as a tree in memory. Call
+ * {@link #start(Object)} when a node is entered and {@link #end()} when it is
+ * left; the first node started is the root. Each node matched is passed to the
+ * {@link Listener} as soon as it is started, so matches arrive in document
+ * order rather than the order of {@link Path#select(Object)}. The memory used
+ * is proportional to the depth of the tree, not its size.
+ * <p>
+ * Only paths whose every step walks a forward axis can be evaluated this way:
+ * {@code /}, {@code //}, {@code />}, {@code .}, and the {@code self},
+ * {@code child}, {@code descendant}, and {@code descendant-or-self} axes.
+ * Predicates may test attributes but may not contain paths, positional
+ * indices, or attributes that consult the tree around the node or its index,
+ * such as {@code @leaf} or {@code @depth}; see {@link Attribute#local()}.
+ * Attributes are evaluated against an unwalked {@link Index} of the root
+ * node. Nodes the
+ * {@link Forester} ignores are skipped along with everything beneath them.
+ * <p>
+ * An evaluator may be reused for several trees in succession but is not
+ * thread safe. Obtain one from {@link Path#streamingEvaluator(Listener)}.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            the type of node in the tree
+ */
+public class StreamingEvaluator<N> {
+	/**
+	 * Receives the nodes matched by a {@link StreamingEvaluator}.
+	 * <p>
+	 *
+	 * @param <N>
+	 *            the type of node in the tree
+	 */
+	public interface Listener<N> {
+		/**
+		 * Called once for each node matched, when the node is started.
+		 *
+		 * @param n
+		 *            the node matched
+		 */
+		void matched(N n);
+	}
+
+	/**
+	 * One step of a path, as needed for streaming.
+	 */
+	private static class Step<N> {
+		final Relation relation;
+		final NodeTest<N> test;
+		final Predicate<N>[] predicates;
+
+		Step(Relation relation, NodeTest<N> test, Predicate<N>[] predicates) {
+			this.relation = relation;
+			this.test = test;
+			this.predicates = predicates;
+		}
+
+		boolean accepts(N n, Index<N> i) {
+			if (predicates.length == 0)
+				return true;
+			Collection<N> c = new ArrayList<N>(1);
+			c.add(n);
+			for (Predicate<N> p : predicates) {
+				c = p.filter(c, i);
+				if (c.isEmpty())
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The state of the evaluation at an open node. For each fork of the path
+	 * there is a bit mask in which bit k concerns the k-th step.
+	 */
+	private static class Frame {
+		/**
+		 * the node is a context node for step k
+		 */
+		final long[] context;
+		/**
+		 * the node is a proper descendant of a context node for step k
+		 */
+		final long[] under;
+		/**
+		 * the node's children are candidates for closest step k
+		 */
+		final long[] open;
+
+		Frame(int forks) {
+			context = new long[forks];
+			under = new long[forks];
+			open = new long[forks];
+		}
+	}
+
+	private final Forester<N> f;
+	private final Step<N>[][] forks;
+	private final Listener<N> listener;
+	/**
+	 * Frames are retained and reused so that a deep tree allocates them only
+	 * once.
+	 */
+	private final List<Frame> frames = new ArrayList<Frame>();
+	/**
+	 * Number of nodes currently open, not counting ignored nodes.
+	 */
+	private int depth;
+	/**
+	 * Number of nodes currently open in an ignored subtree.
+	 */
+	private int ignored;
+	private Index<N> index;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	StreamingEvaluator(Forester<N> f, Selector<N>[][] selectors,
+			Listener<N> listener) {
+		if (listener == null)
+			throw new PathException("streaming evaluation requires a listener");
+		this.f = f;
+		this.listener = listener;
+		forks = new Step[selectors.length][];
+		for (int i = 0; i < selectors.length; i++) {
+			Selector<N>[] fork = selectors[i];
+			if (fork.length > Long.SIZE)
+				throw new PathException(
+						"paths with more than " + Long.SIZE
+								+ " steps cannot be evaluated by streaming");
+			forks[i] = new Step[fork.length];
+			for (int j = 0; j < fork.length; j++)
+				forks[i][j] = step(fork[j]);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Step<N> step(Selector<N> s) {
+		Relation r = null;
+		if (s instanceof ForwardSelector<?>)
+			r = ((ForwardSelector<N>) s).relation();
+		if (r == null && s instanceof AxisSelector<?>)
+			// a first step such as /descendant::foo walks its axis from the
+			// root, which is where streaming evaluation begins
+			r = ((AxisSelector<N>) s).axisRelation();
+		if (r == null)
+			throw new PathException("step " + s.getClass().getSimpleName()
+					+ " does not walk a forward axis; path cannot be evaluated by streaming");
+		Predicate<N>[] predicates;
+		if (s instanceof TestSelector<?>)
+			predicates = ((TestSelector<N>) s).predicates;
+		else {
+			// the predicates are already folded into the test
+			for (Predicate<N> p : ((WildcardSelector<N>) s).predicates)
+				checkLocal(p);
+			predicates = new Predicate[0];
+		}
+		for (Predicate<N> p : predicates)
+			checkLocal(p);
+		return new Step<N>(r, ((ForwardSelector<N>) s).test(), predicates);
+	}
+
+	private void checkLocal(Predicate<N> p) {
+		if (!p.local())
+			throw new PathException(
+					"predicates containing paths, indices, or non-local attributes cannot be evaluated by streaming");
+	}
+
+	/**
+	 * Signals that a node has been entered. The first node started, and every
+	 * node started after the tree is finished, is treated as a root.
+	 *
+	 * @param n
+	 *            the node entered
+	 */
+	public void start(N n) {
+		if (n == null)
+			throw new PathException("start called on null node");
+		if (ignored > 0) {
+			ignored++;
+			return;
+		}
+		if (depth == 0)
+			index = f.index(n);
+		else {
+			for (NodeTest<N> t : f.ignore) {
+				if (t.passes(n, index)) {
+					ignored = 1;
+					return;
+				}
+			}
+		}
+		Frame parent = depth == 0 ? null : frames.get(depth - 1);
+		if (frames.size() == depth)
+			frames.add(new Frame(forks.length));
+		Frame frame = frames.get(depth++);
+		boolean matched = false;
+		for (int i = 0; i < forks.length; i++) {
+			Step<N>[] steps = forks[i];
+			long context = parent == null ? 1L : 0L, under = 0, open = 0, passed = 0;
+			if (parent != null) {
+				under = parent.context[i] | parent.under[i];
+				open = parent.open[i];
+			}
+			for (int k = 0; k < steps.length; k++) {
+				long bit = 1L << k;
+				Step<N> s = steps[k];
+				long candidates;
+				switch (s.relation) {
+				case self:
+					candidates = context;
+					break;
+				case child:
+					candidates = parent == null ? 0 : parent.context[i];
+					break;
+				case descendant:
+					candidates = under;
+					break;
+				case descendantOrSelf:
+					candidates = context | under;
+					break;
+				case closest:
+					candidates = context | open;
+					break;
+				default:
+					throw new PathException("unexpected relation " + s.relation);
+				}
+				if ((candidates & bit) != 0 && s.test.passes(n, index)) {
+					passed |= bit;
+					if (s.accepts(n, index)) {
+						if (k == steps.length - 1)
+							matched = true;
+						else
+							context |= bit << 1;
+					}
+				}
+			}
+			frame.context[i] = context;
+			frame.under[i] = under;
+			// a closest search stops at the first node passing its test
+			frame.open[i] = (context | open) & ~passed;
+		}
+		if (matched)
+			listener.matched(n);
+	}
+
+	/**
+	 * Signals that the most recently started node that has not yet ended has
+	 * ended.
+	 */
+	public void end() {
+		if (ignored > 0) {
+			ignored--;
+			return;
+		}
+		if (depth == 0)
+			throw new PathException("end called with no node open");
+		if (--depth == 0)
+			index = null;
+	}
+}
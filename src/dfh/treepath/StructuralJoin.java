@@ -0,0 +1,241 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import dfh.treepath.ForwardSelector.Relation;
+
+/**
+ * Evaluates a descendant step, such as the second step of {@code //a//b}, for
+ * a whole set of context nodes at once. Where {@link Path} would otherwise walk
+ * the subtree under each context node in turn, walking shared subtrees once
+ * for every context node above them, the join scans each node in the union of
+ * the subtrees once. This requires an {@link Index} that has numbered its
+ * nodes in postorder, so that each subtree is an interval of numbers; see
+ * {@link Index#numberNodes()}. Where the index has postings for the step's
+ * test, the join visits only the numbers posted; see
+ * {@link Index#postings(NodeTest)}.
+ * <p>
+ * The nodes are returned in the order {@link Path} would produce them: each
+ * node is listed under the first context node above it, the nodes under a
+ * context node are in postorder, and context nodes are taken in the order
+ * given.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+class StructuralJoin {
+	private StructuralJoin() {
+	}
+
+	/**
+	 * Determines whether a step can be evaluated by a join.
+	 *
+	 * @param s
+	 *            a step
+	 * @return whether the step selects descendants, with or without the
+	 *         context node, and has no predicates
+	 */
+	static <N> boolean joinable(Selector<N> s) {
+		if (!(s instanceof ForwardSelector<?>))
+			return false;
+		Relation r = ((ForwardSelector<N>) s).relation();
+		if (r != Relation.descendant && r != Relation.descendantOrSelf)
+			return false;
+		if (s instanceof TestSelector<?>)
+			return ((TestSelector<N>) s).predicates.length == 0;
+		return ((WildcardSelector<N>) s).predicates.length == 0;
+	}
+
+	/**
+	 * Counts the nodes a child, descendant, or descendant-or-self step without
+	 * predicates selects from a set of context nodes, without visiting them.
+	 * The nodes under the context nodes are intervals of postorder numbers,
+	 * and a node's children are found by hopping from one sibling's subtree
+	 * to the next. If the step is a wildcard every number counts; otherwise
+	 * only those the index posts for the step's test.
+	 *
+	 * @param contexts
+	 *            distinct context nodes
+	 * @param s
+	 *            the step
+	 * @param i
+	 *            a numbered index
+	 * @return the number of nodes selected; -1 if they cannot be counted this
+	 *         way
+	 */
+	@SuppressWarnings("unchecked")
+	static <N> int count(Collection<N> contexts, Selector<N> s, Index<N> i) {
+		if (!(s instanceof ForwardSelector<?>))
+			return -1;
+		ForwardSelector<N> fs = (ForwardSelector<N>) s;
+		Relation r = fs.relation();
+		if (r != Relation.child && r != Relation.descendant
+				&& r != Relation.descendantOrSelf)
+			return -1;
+		boolean wildcard;
+		if (s instanceof TestSelector<?>) {
+			if (((TestSelector<N>) s).predicates.length > 0)
+				return -1;
+			wildcard = fs.test() == TrueTest.test();
+		} else if (((WildcardSelector<N>) s).predicates.length > 0)
+			return -1;
+		else
+			wildcard = true;
+		int[] postings = wildcard ? null : i.postings(fs.test());
+		if (!wildcard && postings == null)
+			return -1;
+		int[] numbers = new int[contexts.size()];
+		int count = 0;
+		for (N c : contexts) {
+			int k = i.postorderNumber(c);
+			if (k == -1)
+				return -1;
+			numbers[count++] = k;
+		}
+		count = 0;
+		if (r == Relation.child) {
+			// the children of distinct nodes are distinct
+			for (int k : numbers) {
+				for (int c = k - 1, first = i.subtreeStart(k); c >= first; c = i
+						.subtreeStart(c) - 1) {
+					if (wildcard || Arrays.binarySearch(postings, c) >= 0)
+						count++;
+				}
+			}
+			return count;
+		}
+		// merge the intervals under the context nodes, so that nodes under
+		// several are counted once
+		int self = r == Relation.descendantOrSelf ? 0 : 1;
+		int[][] intervals = new int[numbers.length][];
+		int n = 0;
+		for (int k : numbers) {
+			int first = i.subtreeStart(k), last = k - self;
+			if (first <= last)
+				intervals[n++] = new int[] { first, last };
+		}
+		Arrays.sort(intervals, 0, n, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] a, int[] b) {
+				return a[0] < b[0] ? -1 : a[0] == b[0] ? 0 : 1;
+			}
+		});
+		for (int j = 0; j < n;) {
+			int first = intervals[j][0], last = intervals[j][1];
+			for (j++; j < n && intervals[j][0] <= last; j++)
+				last = Math.max(last, intervals[j][1]);
+			count += wildcard ? last - first + 1 : Index.ceiling(postings,
+					last + 1) - Index.ceiling(postings, first);
+		}
+		return count;
+	}
+
+	/**
+	 * Evaluates a {@link #joinable(Selector) joinable} step for a set of
+	 * context nodes.
+	 *
+	 * @param contexts
+	 *            context nodes
+	 * @param s
+	 *            the step
+	 * @param i
+	 *            a numbered index
+	 * @return the nodes selected; null if some context node is not numbered
+	 */
+	@SuppressWarnings("unchecked")
+	static <N> List<N> join(Collection<N> contexts, Selector<N> s, Index<N> i) {
+		ForwardSelector<N> fs = (ForwardSelector<N>) s;
+		NodeTest<N> t = fs.test();
+		// a node is under its own interval if the context node itself can be
+		// selected
+		int self = fs.relation() == Relation.descendantOrSelf ? 0 : 1;
+		// each interval is {first, last, rank}
+		int[][] intervals = new int[contexts.size()][];
+		int count = 0, rank = 0;
+		for (N c : contexts) {
+			int k = i.postorderNumber(c);
+			if (k == -1)
+				return null;
+			int first = i.subtreeStart(k), last = k - self;
+			if (first <= last)
+				intervals[count++] = new int[] { first, last, rank };
+			rank++;
+		}
+		// order the intervals by start, outer intervals before the intervals
+		// they contain
+		Arrays.sort(intervals, 0, count, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] a, int[] b) {
+				if (a[0] != b[0])
+					return a[0] < b[0] ? -1 : 1;
+				return a[1] == b[1] ? 0 : a[1] > b[1] ? -1 : 1;
+			}
+		});
+		// sweep through the numbers in order, keeping a stack of the open
+		// intervals and the least rank of any interval on the stack; with
+		// postings, only the nodes known to pass are visited
+		int[] postings = i.postings(t);
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<N>[] buckets = new List[rank];
+		int[] ends = new int[count], ranks = new int[count];
+		int depth = 0, next = 0, cursor = 0, found = 0;
+		while (next < count || depth > 0) {
+			if (depth > 0) {
+				int end = ends[depth - 1];
+				int start = next < count ? intervals[next][0] : end + 1;
+				// scan to the end of the innermost open interval or, if the
+				// next interval begins inside it, to the beginning of that
+				int last = Math.min(end, start - 1);
+				int r = ranks[depth - 1];
+				if (postings != null && cursor <= last) {
+					for (int p = Index.ceiling(postings, cursor); p < postings.length
+							&& postings[p] <= last; p++) {
+						if (buckets[r] == null)
+							buckets[r] = new ArrayList<N>();
+						buckets[r].add(i.postorderNode(postings[p]));
+						found++;
+					}
+					cursor = last + 1;
+				}
+				for (; cursor <= last; cursor++) {
+					N n = i.postorderNode(cursor);
+					if (t.passes(n, i)) {
+						if (buckets[r] == null)
+							buckets[r] = new ArrayList<N>();
+						buckets[r].add(n);
+						found++;
+					}
+				}
+				if (start > end) {
+					depth--;
+					continue;
+				}
+			} else
+				cursor = intervals[next][0];
+			int[] in = intervals[next++];
+			ends[depth] = in[1];
+			ranks[depth] = depth == 0 ? in[2] : Math.min(in[2],
+					ranks[depth - 1]);
+			depth++;
+		}
+		List<N> selection = new ArrayList<N>(found);
+		for (List<N> b : buckets) {
+			if (b != null)
+				selection.addAll(b);
+		}
+		return selection;
+	}
+}
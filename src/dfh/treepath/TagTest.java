@@ -0,0 +1,35 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+/**
+ * {@link NodeTest} implementing a tag such as the "b" in {@code //b}. The tag
+ * is exposed so that searches can skip subtrees an {@link Index} knows cannot
+ * contain it.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ *            node type
+ */
+class TagTest<N> implements NodeTest<N> {
+	private static final long serialVersionUID = 1L;
+
+	final String tag;
+
+	TagTest(String tag) {
+		this.tag = tag;
+	}
+
+	@Override
+	public boolean passes(N n, Index<N> i) {
+		return i.f.hasTag(n, tag);
+	}
+}
@@ -13,6 +13,7 @@ import java.util.List;
 
 import dfh.grammar.Match;
 import dfh.grammar.MatchTest;
+import dfh.treepath.PathGrammar.Axis;
 
 abstract class TestSelector<N> implements Selector<N> {
 	private static final long serialVersionUID = 1L;
@@ -25,19 +26,27 @@ abstract class TestSelector<N> implements Selector<N> {
 		}
 	};
 	protected final Predicate<N>[] predicates;
+	/**
+	 * Whether the first predicate is positional, as in {@code foo[0]}.
+	 */
+	private final boolean positional;
 
 	@SuppressWarnings("unchecked")
 	TestSelector(Match arguments, Forester<N> f) {
 		List<Match> argList = arguments.closest(predicateMT);
-		predicates = new Predicate[argList.size()];
+		Predicate<N>[] predicates = new Predicate[argList.size()];
 		for (int i = 0; i < predicates.length; i++) {
 			predicates[i] = Predicate.build(argList.get(i), f);
 		}
+		this.predicates = TwigPredicate.merge(predicates);
+		positional = this.predicates.length > 0
+				&& this.predicates[0] instanceof IndexPredicate<?>;
 	}
 
 	@Override
 	public Collection<N> select(N n, Index<N> i) {
-		Collection<N> candidates = candidates(n, i);
+		Collection<N> candidates = positional ? candidates(n, i,
+				((IndexPredicate<N>) predicates[0]).index()) : candidates(n, i);
 		for (Predicate<N> p : predicates) {
 			candidates = p.filter(candidates, i);
 			if (candidates.isEmpty())
@@ -47,4 +56,24 @@ abstract class TestSelector<N> implements Selector<N> {
 	}
 
 	protected abstract Collection<N> candidates(N n, Index<N> i);
+
+	/**
+	 * Called instead of {@link #candidates(Object, Index)} when only the
+	 * candidate at a particular position is wanted, so that selectors that can
+	 * stop looking once it is found may do so. See
+	 * {@link Forester#axis(Object, Axis, NodeTest, Index, int)}. Unless
+	 * overridden this method collects all candidates.
+	 * 
+	 * @param n
+	 *            context node
+	 * @param i
+	 *            tree index
+	 * @param position
+	 *            position of the candidate wanted
+	 * @return the candidates up to the position, or from it to the end if it
+	 *         is negative
+	 */
+	protected Collection<N> candidates(N n, Index<N> i, int position) {
+		return candidates(n, i);
+	}
 }
@@ -0,0 +1,169 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+/**
+ * A read-only view of a stretch of a larger {@link CharSequence}, such as the
+ * text matched by one node of a parse tree within the text matched by the
+ * root. Comparisons made through the static methods of this class examine the
+ * characters in place, so a test such as {@code [@group = 'foo']} allocates no
+ * substring. {@link #toString()} copies the characters, once.
+ * <p>
+ * Views are equal to other views with the same characters, but, like
+ * {@link StringBuilder}, never to a {@link String}; compare them with
+ * {@link #compare(CharSequence, CharSequence)}.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+final class TextView implements CharSequence {
+	private final CharSequence text;
+	private final int start, end;
+	private String string;
+
+	/**
+	 * @param text
+	 *            the underlying text
+	 * @param start
+	 *            offset of the first character in view
+	 * @param end
+	 *            offset after the last character in view
+	 */
+	TextView(CharSequence text, int start, int end) {
+		this.text = text;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= end - start)
+			throw new IndexOutOfBoundsException("index: " + index);
+		return text.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		if (from < 0 || to > end - start || from > to)
+			throw new IndexOutOfBoundsException("range: " + from + ", " + to);
+		return new TextView(text, start + from, start + to);
+	}
+
+	@Override
+	public String toString() {
+		if (string == null)
+			string = text.subSequence(start, end).toString();
+		return string;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof TextView))
+			return false;
+		TextView v = (TextView) o;
+		return v.length() == length() && compare(this, v) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (int k = start; k < end; k++)
+			h = 31 * h + text.charAt(k);
+		return h;
+	}
+
+	/**
+	 * Compares two sequences lexicographically, as
+	 * {@link String#compareTo(String)} compares strings.
+	 *
+	 * @param s1
+	 *            a sequence
+	 * @param s2
+	 *            another sequence
+	 * @return the difference of the first characters to differ or, failing
+	 *         that, of the lengths
+	 */
+	static int compare(CharSequence s1, CharSequence s2) {
+		if (s1 instanceof String && s2 instanceof String)
+			return ((String) s1).compareTo((String) s2);
+		int l1 = s1.length(), l2 = s2.length();
+		for (int k = 0, lim = Math.min(l1, l2); k < lim; k++) {
+			char c1 = s1.charAt(k), c2 = s2.charAt(k);
+			if (c1 != c2)
+				return c1 - c2;
+		}
+		return l1 - l2;
+	}
+
+	/**
+	 * @param s
+	 *            a sequence
+	 * @param prefix
+	 *            a possible prefix
+	 * @return whether s begins with prefix
+	 */
+	static boolean startsWith(CharSequence s, CharSequence prefix) {
+		return prefix.length() <= s.length() && matches(s, 0, prefix);
+	}
+
+	/**
+	 * @param s
+	 *            a sequence
+	 * @param suffix
+	 *            a possible suffix
+	 * @return whether s ends with suffix
+	 */
+	static boolean endsWith(CharSequence s, CharSequence suffix) {
+		int k = s.length() - suffix.length();
+		return k >= 0 && matches(s, k, suffix);
+	}
+
+	/**
+	 * @param s
+	 *            a sequence
+	 * @param infix
+	 *            a sequence to look for
+	 * @return the offset of the first occurrence of infix in s; -1 if there is
+	 *         none
+	 */
+	static int indexOf(CharSequence s, CharSequence infix) {
+		if (s instanceof String && infix instanceof String)
+			return ((String) s).indexOf((String) infix);
+		for (int k = 0, lim = s.length() - infix.length(); k <= lim; k++) {
+			if (matches(s, k, infix))
+				return k;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param s
+	 *            a sequence
+	 * @param offset
+	 *            an offset in s at which part.length() characters remain
+	 * @param part
+	 *            a sequence
+	 * @return whether part occurs in s at offset
+	 */
+	private static boolean matches(CharSequence s, int offset, CharSequence part) {
+		for (int k = 0, lim = part.length(); k < lim; k++) {
+			if (s.charAt(offset + k) != part.charAt(k))
+				return false;
+		}
+		return true;
+	}
+}
@@ -23,15 +23,25 @@ class TreePathPredicate<N> extends Predicate<N> {
 		path = f.path(type);
 	}
 
+	/**
+	 * @return the path tested
+	 */
+	Path<N> path() {
+		return path;
+	}
+
 	@Override
 	Collection<N> filter(Collection<N> c, Index<N> i) {
 		List<N> filtrate = new ArrayList<N>(c.size());
 		for (N n : c) {
-			Collection<N> c2 = path.select(n);
-			if (!c2.isEmpty())
+			if (path.selectsAny(n, i))
 				filtrate.add(n);
 		}
 		return filtrate;
 	}
 
+	@Override
+	boolean local() {
+		return false;
+	}
 }
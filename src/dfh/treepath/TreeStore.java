@@ -0,0 +1,506 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A compact, read-only, on-disk copy of a tree. Any tree a {@link Forester}
+ * understands can be {@link #write(Object, Forester, Describer, File) written}
+ * to a file; the file can then be {@link #open(File) opened} in any process
+ * and queried with a {@link TreeStoreForester}. Opening a store maps the file
+ * into memory rather than reading it, so it takes almost no time or memory
+ * regardless of the size of the tree, and processes which open the same file
+ * share the operating system's page cache. {@link Node} objects and the
+ * strings they return are made as they are needed.
+ * <p>
+ * The file holds the tree's topology as parallel arrays indexed by the nodes'
+ * positions in preorder -- parents, tags, and the offsets of each node's
+ * children and attributes -- followed by a dictionary of all the strings used
+ * as tags, attribute names, and attribute values. All numbers are big-endian
+ * 32-bit integers:
+ *
+ * <pre>
+ * magic version nodes strings attributes
+ * parent[nodes] tag[nodes]
+ * childOffset[nodes + 1] children[nodes - 1]
+ * attributeOffset[nodes + 1] attribute[2 * attributes]
+ * stringOffset[strings + 1] UTF-8 bytes
+ * </pre>
+ *
+ * As the file is mapped in a single piece, it may be at most 2 GB.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class TreeStore {
+	/**
+	 * Provides the information about a node that a {@link Forester} doesn't:
+	 * its tag and any string attributes to store with it.
+	 * <p>
+	 *
+	 * @param <N>
+	 *            the type of node described
+	 */
+	public interface Describer<N> {
+		/**
+		 * @param n
+		 *            a node
+		 * @return the tag to store for the node
+		 */
+		String tag(N n);
+
+		/**
+		 * @param n
+		 *            a node
+		 * @return the attributes to store for the node; may be {@code null}
+		 */
+		Map<String, String> attributes(N n);
+	}
+
+	/**
+	 * A node in a {@link TreeStore}. While a {@link Node} object for a given
+	 * node in a given store is in use, it is the only one, so nodes may be
+	 * compared by identity.
+	 * <p>
+	 */
+	public static final class Node {
+		private final TreeStore store;
+		private final int id;
+
+		private Node(TreeStore store, int id) {
+			this.store = store;
+			this.id = id;
+		}
+
+		/**
+		 * @return the node's position in the preorder traversal of its tree
+		 */
+		public int id() {
+			return id;
+		}
+
+		/**
+		 * @return the store containing this node
+		 */
+		public TreeStore store() {
+			return store;
+		}
+
+		/**
+		 * @return the node's tag
+		 */
+		public String tag() {
+			return store.string(store.get(store.tags, id));
+		}
+
+		/**
+		 * @param name
+		 *            attribute name
+		 * @return the value of the named attribute, or {@code null} if the
+		 *         node has no such attribute
+		 */
+		public String attribute(String name) {
+			for (int i = store.get(store.attributeOffsets, id), lim = store
+					.get(store.attributeOffsets, id + 1); i < lim; i++) {
+				if (name.equals(store.string(store.get(store.attributes,
+						2 * i))))
+					return store.string(store.get(store.attributes, 2 * i + 1));
+			}
+			return null;
+		}
+
+		/**
+		 * @return all the node's attributes in the order they were stored
+		 */
+		public Map<String, String> attributes() {
+			Map<String, String> map = new LinkedHashMap<String, String>();
+			for (int i = store.get(store.attributeOffsets, id), lim = store
+					.get(store.attributeOffsets, id + 1); i < lim; i++) {
+				map.put(store.string(store.get(store.attributes, 2 * i)),
+						store.string(store.get(store.attributes, 2 * i + 1)));
+			}
+			return map;
+		}
+
+		@Override
+		public String toString() {
+			return tag() + '#' + id;
+		}
+	}
+
+	private static final int MAGIC = 0x54505453; // TPTS
+	private static final int VERSION = 1;
+	private static final int HEADER = 5;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * A weak reference to a {@link Node} that remembers the node's id, so it
+	 * can be removed from {@link TreeStore#nodes} once collected.
+	 */
+	private static final class NodeReference extends WeakReference<Node> {
+		final Integer id;
+
+		NodeReference(Node n, Integer id, ReferenceQueue<Node> queue) {
+			super(n, queue);
+			this.id = id;
+		}
+	}
+
+	private final ByteBuffer buffer;
+	private final int size, stringCount;
+	private final int parents, tags, childOffsets, children,
+			attributeOffsets, attributes, stringOffsets, strings;
+	private final Node root;
+	/**
+	 * The nodes in use, weakly held, so that a node has only one object while
+	 * it is reachable and costs nothing once it is not.
+	 */
+	private final ConcurrentMap<Integer, NodeReference> nodes = new ConcurrentHashMap<Integer, NodeReference>();
+	private final ReferenceQueue<Node> collected = new ReferenceQueue<Node>();
+	/**
+	 * The strings decoded so far.
+	 */
+	private final ConcurrentMap<Integer, String> dictionary = new ConcurrentHashMap<Integer, String>();
+
+	private TreeStore(ByteBuffer buffer) {
+		this.buffer = buffer;
+		long capacity = buffer.capacity();
+		if (capacity < HEADER * 4 || buffer.getInt(0) != MAGIC)
+			throw new PathException("not a tree store");
+		if (buffer.getInt(4) != VERSION)
+			throw new PathException("unsupported tree store version "
+					+ buffer.getInt(4));
+		size = buffer.getInt(8);
+		stringCount = buffer.getInt(12);
+		int attributeCount = buffer.getInt(16);
+		if (size < 1 || stringCount < 0 || attributeCount < 0)
+			throw new PathException("corrupt tree store header: " + size
+					+ " nodes, " + stringCount + " strings, " + attributeCount
+					+ " attributes");
+		// long arithmetic, so a corrupt header cannot overflow into a
+		// plausible layout
+		long parents = HEADER * 4L;
+		long tags = parents + size * 4L;
+		long childOffsets = tags + size * 4L;
+		long children = childOffsets + (size + 1L) * 4;
+		long attributeOffsets = children + (size - 1L) * 4;
+		long attributes = attributeOffsets + (size + 1L) * 4;
+		long stringOffsets = attributes + attributeCount * 8L;
+		long strings = stringOffsets + (stringCount + 1L) * 4;
+		if (strings > capacity)
+			throw new PathException("truncated tree store: header requires "
+					+ strings + " bytes; file has " + capacity);
+		this.parents = (int) parents;
+		this.tags = (int) tags;
+		this.childOffsets = (int) childOffsets;
+		this.children = (int) children;
+		this.attributeOffsets = (int) attributeOffsets;
+		this.attributes = (int) attributes;
+		this.stringOffsets = (int) stringOffsets;
+		this.strings = (int) strings;
+		long text = strings + (long) get(this.stringOffsets, stringCount);
+		if (text > capacity)
+			throw new PathException("truncated tree store: strings require "
+					+ text + " bytes; file has " + capacity);
+		root = new Node(this, 0);
+	}
+
+	/**
+	 * Maps a file written by
+	 * {@link #write(Object, Forester, Describer, File)} into memory.
+	 *
+	 * @param file
+	 *            tree store file
+	 * @return the store
+	 * @throws IOException
+	 */
+	public static TreeStore open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new PathException(file + " is too large to map");
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new TreeStore(buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes the tree rooted at the given node to a file. Nodes the forester
+	 * ignores are omitted.
+	 *
+	 * @param root
+	 *            root of the tree to store
+	 * @param f
+	 *            {@link Forester} that understands the tree
+	 * @param d
+	 *            provides tags and attributes for the nodes
+	 * @param file
+	 *            file to write
+	 * @throws IOException
+	 */
+	public static <N> void write(N root, Forester<N> f, Describer<N> d,
+			File file) throws IOException {
+		Index<N> index = f.index(root);
+		index.index();
+		Ints parentList = new Ints();
+		Ints tagList = new Ints();
+		Ints attributeOffsetList = new Ints();
+		Ints attributeList = new Ints();
+		Map<String, Integer> stringIds = new HashMap<String, Integer>();
+		List<String> stringList = new ArrayList<String>();
+		// iterative preorder walk so deep trees can't overflow the stack
+		List<N> stack = new ArrayList<N>();
+		Ints parentStack = new Ints();
+		stack.add(root);
+		parentStack.add(-1);
+		while (!stack.isEmpty()) {
+			N n = stack.remove(stack.size() - 1);
+			int parent = parentStack.pop();
+			int id = parentList.size;
+			parentList.add(parent);
+			tagList.add(stringId(d.tag(n), stringIds, stringList));
+			attributeOffsetList.add(attributeList.size / 2);
+			Map<String, String> attributes = d.attributes(n);
+			if (attributes != null) {
+				for (Entry<String, String> e : attributes.entrySet()) {
+					attributeList.add(stringId(e.getKey(), stringIds,
+							stringList));
+					attributeList.add(stringId(e.getValue(), stringIds,
+							stringList));
+				}
+			}
+			List<N> kids = f.kids(n, index);
+			for (int i = kids.size() - 1; i >= 0; i--) {
+				stack.add(kids.get(i));
+				parentStack.add(id);
+			}
+		}
+		int size = parentList.size;
+		attributeOffsetList.add(attributeList.size / 2);
+		// children are grouped by parent; preorder ids keep them in order
+		int[] childOffsets = new int[size + 1];
+		for (int i = 1; i < size; i++)
+			childOffsets[parentList.values[i] + 1]++;
+		for (int i = 0; i < size; i++)
+			childOffsets[i + 1] += childOffsets[i];
+		int[] children = new int[Math.max(size - 1, 0)];
+		int[] fill = new int[size];
+		for (int i = 1; i < size; i++) {
+			int p = parentList.values[i];
+			children[childOffsets[p] + fill[p]++] = i;
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(size);
+			out.writeInt(stringList.size());
+			out.writeInt(attributeList.size / 2);
+			parentList.write(out);
+			tagList.write(out);
+			for (int i : childOffsets)
+				out.writeInt(i);
+			for (int i : children)
+				out.writeInt(i);
+			attributeOffsetList.write(out);
+			attributeList.write(out);
+			List<byte[]> bytes = new ArrayList<byte[]>(stringList.size());
+			int offset = 0;
+			out.writeInt(offset);
+			for (String s : stringList) {
+				byte[] b = s.getBytes(UTF8);
+				bytes.add(b);
+				offset += b.length;
+				out.writeInt(offset);
+			}
+			for (byte[] b : bytes)
+				out.write(b);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * A growable list of ints, so writing a store doesn't box them.
+	 */
+	private static final class Ints {
+		int[] values = new int[16];
+		int size;
+
+		void add(int i) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = i;
+		}
+
+		int pop() {
+			return values[--size];
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			for (int i = 0; i < size; i++)
+				out.writeInt(values[i]);
+		}
+	}
+
+	private static int stringId(String s, Map<String, Integer> ids,
+			List<String> strings) {
+		if (s == null)
+			throw new PathException("tree stores cannot hold null strings");
+		Integer id = ids.get(s);
+		if (id == null) {
+			id = strings.size();
+			ids.put(s, id);
+			strings.add(s);
+		}
+		return id;
+	}
+
+	/**
+	 * @return the number of nodes in the store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the root of the stored tree
+	 */
+	public Node root() {
+		return root;
+	}
+
+	/**
+	 * @param id
+	 *            preorder position of a node
+	 * @return the node at that position
+	 */
+	public Node node(int id) {
+		if (id == 0)
+			return root;
+		if (id < 0 || id >= size)
+			throw new PathException("no node " + id + " in a store of "
+					+ size);
+		for (Reference<? extends Node> r; (r = collected.poll()) != null;)
+			nodes.remove(((NodeReference) r).id, r);
+		Integer key = id;
+		NodeReference r = nodes.get(key);
+		while (true) {
+			Node n = r == null ? null : r.get();
+			if (n != null)
+				return n;
+			n = new Node(this, id);
+			NodeReference nr = new NodeReference(n, key, collected);
+			if (r == null ? nodes.putIfAbsent(key, nr) == null : nodes
+					.replace(key, r, nr))
+				return n;
+			r = nodes.get(key);
+		}
+	}
+
+	Node parent(Node n) {
+		int p = get(parents, n.id);
+		return p == -1 ? null : node(p);
+	}
+
+	/**
+	 * @param n
+	 *            a node
+	 * @return a view of the node's children
+	 */
+	List<Node> children(final Node n) {
+		final int start = get(childOffsets, n.id), end = get(childOffsets,
+				n.id + 1);
+		if (start == end)
+			return Collections.emptyList();
+		return new ChildList(start, end);
+	}
+
+	private class ChildList extends AbstractList<Node> implements RandomAccess {
+		private final int start, end;
+
+		ChildList(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Node get(int index) {
+			if (index < 0 || index >= end - start)
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			return node(TreeStore.this.get(children, start + index));
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+
+	private int get(int section, int i) {
+		return buffer.getInt(section + i * 4);
+	}
+
+	private String string(int id) {
+		Integer key = id;
+		String s = dictionary.get(key);
+		if (s == null) {
+			if (id < 0 || id >= stringCount)
+				throw new PathException("no string " + id + " in a store of "
+						+ stringCount);
+			int start = get(stringOffsets, id), end = get(stringOffsets,
+					id + 1);
+			if (start < 0 || end < start
+					|| strings + (long) end > buffer.capacity())
+				throw new PathException("corrupt tree store: string " + id
+						+ " spans " + start + " to " + end);
+			byte[] b = new byte[end - start];
+			// a duplicate has its own position, so readers don't interfere
+			ByteBuffer view = buffer.duplicate();
+			view.position(strings + start);
+			view.get(b);
+			s = new String(b, UTF8);
+			String other = dictionary.putIfAbsent(key, s);
+			if (other != null)
+				s = other;
+		}
+		return s;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import dfh.treepath.TreeStore.Node;
+
+/**
+ * A {@link Forester} for trees in a {@link TreeStore}. Nodes know their own
+ * parents and children, so the index this forester builds records nothing but
+ * the root.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class TreeStoreForester extends FunctionalForester<Node> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Delegates to {@link FunctionalForester#FunctionalForester(NodeTest...)}.
+	 *
+	 * @param ignore
+	 *            node types to ignore
+	 */
+	@SuppressWarnings("unchecked")
+	public TreeStoreForester(NodeTest<Node>... ignore) {
+		super(ignore);
+	}
+
+	@Override
+	protected List<Node> children(Node n, Index<Node> i) {
+		return n.store().children(n);
+	}
+
+	@Override
+	protected boolean hasTag(Node n, String tag) {
+		return n.tag().equals(tag);
+	}
+
+	@Override
+	protected String tag(Node n) {
+		return n.tag();
+	}
+
+	@Override
+	protected boolean matchesTag(Node n, Pattern p) {
+		return p.matcher(n.tag()).find();
+	}
+
+	@Override
+	protected Node parent(Node n, Index<Node> i) {
+		return n.store().parent(n);
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @return the node's tag
+	 */
+	@Attribute(description = "the node's tag")
+	public String tag(Node n, Collection<Node> c, Index<Node> i) {
+		return n.tag();
+	}
+
+	/**
+	 * @param n
+	 *            context node
+	 * @param c
+	 *            context collection; required by method signature but ignored
+	 * @param i
+	 *            tree index; required by method signature but ignored
+	 * @param name
+	 *            attribute name
+	 * @return the value of the stored attribute, if any
+	 */
+	@Attribute(description = "the value of a stored attribute")
+	public String attr(Node n, Collection<Node> c, Index<Node> i, String name) {
+		return n.attribute(name);
+	}
+}
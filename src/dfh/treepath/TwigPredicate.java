@@ -0,0 +1,276 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dfh.treepath.ForwardSelector.Relation;
+
+/**
+ * Replaces a run of path predicates such as {@code [customer][item/price]}
+ * whose paths descend from the context node by simple steps -- self, child,
+ * descendant, or descendant-or-self, with tag or wildcard tests and no
+ * predicates of their own. Rather than evaluating each path from each
+ * candidate, the branches are decided together in one bottom-up pass over the
+ * candidates' subtrees, each node being visited once however many candidates
+ * lie above it.
+ * <p>
+ * For each node the pass computes a bit set recording which steps of which
+ * branches the node could occupy in a complete match, along with the union of
+ * these sets over its children and over its descendants. A candidate passes if
+ * the first step of every branch can be taken from it. If no step walks the
+ * descendant axes the pass goes no deeper below a candidate than the branches
+ * do.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ * @param <N>
+ */
+class TwigPredicate<N> extends Predicate<N> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The relation of each step to the one before it.
+	 */
+	private final Relation[] relations;
+	private final NodeTest<N>[] tests;
+	/**
+	 * Bits marking the first and last steps of each branch.
+	 */
+	private final long firsts, lasts;
+	/**
+	 * How far below a candidate the pass must look: the greatest number of
+	 * child steps in any branch, or {@link Integer#MAX_VALUE} if any step
+	 * walks the descendant axes.
+	 */
+	private final int depth;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private TwigPredicate(List<Selector<N>[]> branches) {
+		List<Relation> relations = new ArrayList<Relation>();
+		List<NodeTest<N>> tests = new ArrayList<NodeTest<N>>();
+		long firsts = 0, lasts = 0;
+		int depth = 0;
+		for (Selector<N>[] branch : branches) {
+			firsts |= 1L << relations.size();
+			int children = 0;
+			for (Selector<N> s : branch) {
+				ForwardSelector<N> fs = (ForwardSelector<N>) s;
+				relations.add(fs.relation());
+				tests.add(fs.test());
+				switch (fs.relation()) {
+				case child:
+					if (children < Integer.MAX_VALUE)
+						children++;
+					break;
+				case descendant:
+				case descendantOrSelf:
+					children = Integer.MAX_VALUE;
+					break;
+				default:
+					break;
+				}
+			}
+			depth = Math.max(depth, children);
+			lasts |= 1L << relations.size() - 1;
+		}
+		this.relations = relations.toArray(new Relation[relations.size()]);
+		this.tests = tests.toArray(new NodeTest[tests.size()]);
+		this.firsts = firsts;
+		this.lasts = lasts;
+		this.depth = depth;
+	}
+
+	/**
+	 * Replaces each run of {@link TreePathPredicate TreePathPredicates} that can
+	 * be decided by a twig with a single {@link TwigPredicate}.
+	 *
+	 * @param predicates
+	 *            the predicates of a step, in order
+	 * @return the predicates with runs replaced
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <N> Predicate<N>[] merge(Predicate<N>[] predicates) {
+		List<Predicate<N>> merged = new ArrayList<Predicate<N>>(
+				predicates.length);
+		List<Selector<N>[]> branches = new ArrayList<Selector<N>[]>();
+		int steps = 0;
+		for (Predicate<N> p : predicates) {
+			Selector<N>[] branch = branch(p);
+			if (branch == null || steps + branch.length > Long.SIZE) {
+				if (!branches.isEmpty()) {
+					merged.add(new TwigPredicate<N>(branches));
+					branches = new ArrayList<Selector<N>[]>();
+					steps = 0;
+				}
+			}
+			if (branch == null)
+				merged.add(p);
+			else {
+				branches.add(branch);
+				steps += branch.length;
+			}
+		}
+		if (!branches.isEmpty())
+			merged.add(new TwigPredicate<N>(branches));
+		if (merged.size() == predicates.length)
+			return predicates;
+		return merged.toArray(new Predicate[merged.size()]);
+	}
+
+	/**
+	 * @param p
+	 *            a predicate
+	 * @return the steps of p's path if it is a branch a twig can decide; null
+	 *         otherwise
+	 */
+	private static <N> Selector<N>[] branch(Predicate<N> p) {
+		if (!(p instanceof TreePathPredicate<?>))
+			return null;
+		Selector<N>[][] forks = ((TreePathPredicate<N>) p).path().selectors();
+		if (forks.length != 1 || forks[0].length > Long.SIZE)
+			return null;
+		for (Selector<N> s : forks[0]) {
+			if (!simple(s))
+				return null;
+		}
+		return forks[0];
+	}
+
+	/**
+	 * @param s
+	 *            a step
+	 * @return whether s is relative to the context node, walks a downward
+	 *         axis, and has no predicates
+	 */
+	@SuppressWarnings("unchecked")
+	private static <N> boolean simple(Selector<N> s) {
+		if (!(s instanceof ForwardSelector<?>))
+			return false;
+		// these are relative to the root, not the context node
+		if (s instanceof RootTag<?> || s instanceof RootMatching<?>
+				|| s instanceof RootWildcard<?> || s instanceof RootSelector<?>
+				|| s instanceof RootAxisTag<?>
+				|| s instanceof RootAxisMatching<?>
+				|| s instanceof RootAxisWildcard<?>)
+			return false;
+		Relation r = ((ForwardSelector<N>) s).relation();
+		if (r == null || r == Relation.closest)
+			return false;
+		if (s instanceof TestSelector<?>)
+			return ((TestSelector<N>) s).predicates.length == 0;
+		return ((WildcardSelector<N>) s).predicates.length == 0;
+	}
+
+	@Override
+	Collection<N> filter(Collection<N> c, Index<N> i) {
+		Map<N, long[]> summaries = new IdentityHashMap<N, long[]>();
+		List<N> filtrate = new ArrayList<N>(c.size());
+		for (N n : c) {
+			long[] s = summarize(n, i, summaries, depth);
+			if ((reachable(s) & firsts) == firsts)
+				filtrate.add(n);
+		}
+		return filtrate;
+	}
+
+	/**
+	 * Computes, or looks up, the summary of a node: the steps the node can
+	 * occupy in a complete match, and the unions of these over its children
+	 * and over its descendants. A summary computed looking {@code depth}
+	 * levels below the node is exact for every step followed by no more than
+	 * {@code depth} child steps.
+	 *
+	 * @param n
+	 *            a node
+	 * @param i
+	 *            tree index
+	 * @param summaries
+	 *            the summaries computed so far
+	 * @param depth
+	 *            how many levels below n to look
+	 * @return {self, children, descendants, depth}
+	 */
+	private long[] summarize(N n, Index<N> i, Map<N, long[]> summaries,
+			int depth) {
+		long[] s = summaries.get(n);
+		if (s != null && s[3] >= depth)
+			return s;
+		long children = 0, descendants = 0;
+		if (depth > 0) {
+			for (N k : i.f.kids(n, i)) {
+				long[] ks = summarize(k, i, summaries,
+						depth == Integer.MAX_VALUE ? depth : depth - 1);
+				children |= ks[0];
+				descendants |= ks[0] | ks[2];
+			}
+		}
+		s = new long[] { 0, children, descendants, depth };
+		// later steps first, as a step taken along the self axis needs the
+		// bit for the next step on the same node
+		for (int j = tests.length - 1; j >= 0; j--) {
+			long bit = 1L << j;
+			if ((lasts & bit) == 0
+					&& (reachable(s, relations[j + 1]) & bit << 1) == 0)
+				continue;
+			if (tests[j].passes(n, i))
+				s[0] |= bit;
+		}
+		summaries.put(n, s);
+		return s;
+	}
+
+	/**
+	 * @param s
+	 *            a node's summary
+	 * @return the first steps that can be taken from the node
+	 */
+	private long reachable(long[] s) {
+		long reachable = 0;
+		for (int j = 0; j < relations.length; j++) {
+			long bit = 1L << j;
+			if ((firsts & bit) != 0)
+				reachable |= reachable(s, relations[j]) & bit;
+		}
+		return reachable;
+	}
+
+	/**
+	 * @param s
+	 *            a node's summary
+	 * @param r
+	 *            the relation of a step to the node
+	 * @return the steps that can be occupied by nodes in relation r to the
+	 *         node
+	 */
+	private static long reachable(long[] s, Relation r) {
+		switch (r) {
+		case self:
+			return s[0];
+		case child:
+			return s[1];
+		case descendant:
+			return s[2];
+		case descendantOrSelf:
+			return s[0] | s[2];
+		default:
+			throw new PathException("unexpected relation " + r);
+		}
+	}
+
+	@Override
+	boolean local() {
+		return false;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * dfh.treepath -- a generic tree querying library for Java
+ *
+ * Copyright (C) 2012 David F. Houghton
+ *
+ * This software is licensed under the LGPL. Please see accompanying NOTICE file
+ * and lgpl.txt.
+ */
+package dfh.treepath;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a package-private method that evaluates an {@link Attribute} written
+ * beside it, taking or returning views of text where the attribute method
+ * takes or returns {@link String Strings}, and pre-compiled
+ * {@link java.util.regex.Pattern Patterns} where it takes patterns as strings.
+ * The view method is used in place of the attribute method only where the
+ * forester does not override the attribute method, so the attribute method
+ * keeps its public signature and overriding it still changes the attribute.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@interface ViewAttribute {
+	/**
+	 * The name of the attribute this method evaluates.
+	 *
+	 * @return the name of the attribute this method evaluates
+	 */
+	String value();
+}
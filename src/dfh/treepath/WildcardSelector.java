@@ -27,14 +27,20 @@ abstract class WildcardSelector<N> implements Selector<N> {
 	private static final long serialVersionUID = 1L;
 
 	protected NodeTest<N> test;
+	/**
+	 * The predicates folded into {@link #test}.
+	 */
+	protected final Predicate<N>[] predicates;
 
 	@SuppressWarnings("unchecked")
 	WildcardSelector(Match predMatch, Forester<N> f) {
 		List<Match> predList = predMatch.closest(TestSelector.predicateMT);
-		final Predicate<N>[] predicates = new Predicate[predList.size()];
-		for (int i = 0; i < predicates.length; i++) {
-			predicates[i] = Predicate.build(predList.get(i), f);
+		Predicate<N>[] built = new Predicate[predList.size()];
+		for (int i = 0; i < built.length; i++) {
+			built[i] = Predicate.build(predList.get(i), f);
 		}
+		final Predicate<N>[] predicates = TwigPredicate.merge(built);
+		this.predicates = predicates;
 		test = new NodeTest<N>() {
 			private static final long serialVersionUID = 1L;
 
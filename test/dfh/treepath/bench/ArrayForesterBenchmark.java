@@ -0,0 +1,85 @@
+package dfh.treepath.bench;
+
+import java.util.Random;
+
+import dfh.treepath.ArrayForester;
+import dfh.treepath.Forester;
+import dfh.treepath.Index;
+import dfh.treepath.Path;
+import dfh.treepath.test.XMLToy;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Compares the time and allocation of queries over an {@link XMLToy} tree made
+ * through {@link XMLToyForester}, which copies each child array into a list,
+ * and through an {@link ArrayForester}, which wraps it.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class ArrayForesterBenchmark {
+	@SuppressWarnings("serial")
+	static class ElementForester extends ArrayForester<Element> {
+		@Override
+		protected Element[] childArray(Element e) {
+			return e.children;
+		}
+
+		@Override
+		protected String tag(Element e) {
+			return e.tag;
+		}
+	}
+
+	private static final String[] paths = { "//b", "//a/b/c", "//c//a",
+			"//*[@leaf]", "//b/following-sibling::c", "//a[b][c]" };
+
+	/**
+	 * Builds a random document.
+	 *
+	 * @param r
+	 *            source of randomness
+	 * @param b
+	 *            buffer to write to
+	 * @param depth
+	 *            levels remaining
+	 */
+	static void document(Random r, StringBuilder b, int depth) {
+		char tag = (char) ('a' + r.nextInt(4));
+		b.append('<').append(tag);
+		int kids = depth == 0 ? 0 : r.nextInt(7);
+		if (kids == 0)
+			b.append("/>");
+		else {
+			b.append('>');
+			for (int i = 0; i < kids; i++)
+				document(r, b, depth - 1);
+			b.append("</").append(tag).append('>');
+		}
+	}
+
+	public static void main(String[] args) {
+		StringBuilder b = new StringBuilder();
+		document(new Random(1), b, 7);
+		Element root = XMLToy.parse(b.toString());
+		Bench bench = new Bench(5, 20);
+		run(bench, "XMLToyForester", new XMLToyForester(), root);
+		run(bench, "ArrayForester", new ElementForester(), root);
+	}
+
+	private static void run(Bench bench, String name,
+			final Forester<Element> f, final Element root) {
+		final Index<Element> i = f.index(root);
+		for (String path : paths) {
+			final Path<Element> p = f.path(path);
+			bench.measure(name + " " + path, new Bench.Task() {
+				@Override
+				public int run() {
+					return p.select(root, i).size();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package dfh.treepath.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Times tasks and, on JVMs that can report it, measures what they allocate.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class Bench {
+	private static final ThreadMXBean threads = ManagementFactory
+			.getThreadMXBean();
+
+	/**
+	 * Something to measure.
+	 */
+	public interface Task {
+		/**
+		 * @return some result of the task, such as a count of nodes found,
+		 *         to check it against others and to keep it from being
+		 *         optimized away
+		 */
+		int run();
+	}
+
+	private final int warmups, repetitions;
+
+	/**
+	 * @param warmups
+	 *            unmeasured runs preceding the measured ones
+	 * @param repetitions
+	 *            measured runs
+	 */
+	public Bench(int warmups, int repetitions) {
+		this.warmups = warmups;
+		this.repetitions = repetitions;
+	}
+
+	/**
+	 * Runs a task and prints the mean time and allocation per run.
+	 *
+	 * @param label
+	 *            a name for the task
+	 * @param t
+	 *            the task
+	 * @return the task's result
+	 */
+	public int measure(String label, Task t) {
+		int result = 0;
+		for (int i = 0; i < warmups; i++)
+			result = t.run();
+		long start = allocated(), time = System.nanoTime();
+		for (int i = 0; i < repetitions; i++)
+			result = t.run();
+		time = System.nanoTime() - time;
+		long bytes = start < 0 ? -1 : allocated() - start;
+		System.out.printf("%-40s %10.3f ms %14s bytes %8d%n", label, time
+				/ 1e6 / repetitions, bytes < 0 ? "?" : String.valueOf(bytes
+				/ repetitions), result);
+		return result;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far; -1 if this
+	 *         cannot be determined
+	 */
+	private static long allocated() {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean tmx = (com.sun.management.ThreadMXBean) threads;
+			if (tmx.isThreadAllocatedMemorySupported()
+					&& tmx.isThreadAllocatedMemoryEnabled())
+				return tmx.getThreadAllocatedBytes(Thread.currentThread()
+						.getId());
+		}
+		return -1;
+	}
+}
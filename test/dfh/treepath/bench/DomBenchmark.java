@@ -0,0 +1,109 @@
+package dfh.treepath.bench;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import dfh.treepath.DomForester;
+import dfh.treepath.Index;
+import dfh.treepath.Path;
+
+/**
+ * Compares the time and allocation of equivalent queries made through
+ * {@link DomForester} and through {@link javax.xml.xpath} over the same
+ * document.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class DomBenchmark {
+	/**
+	 * Pairs of equivalent tree path and XPath expressions.
+	 */
+	private static final String[][] queries = {
+			{ "//b", "//b" },
+			{ "//a/b/c", "//a/b/c" },
+			{ "//c//a", "//c//a" },
+			{ "//*[@leaf]", "//*[not(*)]" },
+			{ "//b/following-sibling::c", "//b/following-sibling::c" },
+			{ "//a[b][c]", "//a[b][c]" },
+			{ "//b[@attr('x') = '1']", "//b[@x = '1']" },
+			{ "//d/ancestor::a", "//d/ancestor::a" }, };
+
+	/**
+	 * Builds a random document.
+	 *
+	 * @param r
+	 *            source of randomness
+	 * @param b
+	 *            buffer to write to
+	 * @param depth
+	 *            levels remaining
+	 */
+	static void document(Random r, StringBuilder b, int depth) {
+		char tag = (char) ('a' + r.nextInt(4));
+		b.append('<').append(tag);
+		if (r.nextInt(3) == 0)
+			b.append(" x='").append(r.nextInt(3)).append('\'');
+		int kids = depth == 0 ? 0 : r.nextInt(7);
+		if (kids == 0)
+			b.append("/>");
+		else {
+			b.append('>');
+			for (int i = 0; i < kids; i++)
+				document(r, b, depth - 1);
+			b.append("</").append(tag).append('>');
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		StringBuilder b = new StringBuilder();
+		document(new Random(1), b, 7);
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		final Document doc = dbf.newDocumentBuilder().parse(
+				new InputSource(new StringReader(b.toString())));
+		final Node root = doc.getDocumentElement();
+		DomForester f = DomForester.elements();
+		final Index<Node> i = f.index(root);
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		Bench bench = new Bench(5, 20);
+		for (String[] query : queries) {
+			final Path<Node> p = f.path(query[0]);
+			final XPathExpression x = xpath.compile(query[1]);
+			int tp = bench.measure("treepath " + query[0], new Bench.Task() {
+				@Override
+				public int run() {
+					return p.select(root, i).size();
+				}
+			});
+			int xp = bench.measure("xpath    " + query[1], new Bench.Task() {
+				@Override
+				public int run() {
+					try {
+						return ((NodeList) x.evaluate(doc,
+								XPathConstants.NODESET)).getLength();
+					} catch (XPathExpressionException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			if (tp != xp)
+				throw new IllegalStateException("counts differ for "
+						+ query[0] + ": treepath found " + tp + ", xpath "
+						+ xp);
+		}
+	}
+}
@@ -7,7 +7,11 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({ PathGrammarTest.class, PrecedenceTest.class, XMLToy.class,
 		BasicTests.class, AttributeTests.class, AxisTests.class,
-		FunctionalForesterTest.class, MatchPathTest.class, MixinTest.class })
+		FunctionalForesterTest.class, MatchPathTest.class, MixinTest.class,
+		IndexConcurrencyTest.class, StreamingEvaluatorTest.class,
+		TreeStoreTest.class, IndexSnapshotTest.class,
+		ArrayForesterTest.class, DomForesterTest.class,
+		JsonTreeTest.class, FileForesterTest.class })
 public class AllTests {
 
 }
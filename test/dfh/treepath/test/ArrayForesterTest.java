@@ -0,0 +1,125 @@
+package dfh.treepath.test;
+
+import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import dfh.treepath.ArrayForester;
+import dfh.treepath.Attribute;
+import dfh.treepath.Index;
+import dfh.treepath.LinkedArrayForester;
+import dfh.treepath.ParentIndex;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Makes sure an {@link ArrayForester} finds what a list-based forester finds.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class ArrayForesterTest {
+	/**
+	 * Reads {@link Element} trees, recording parents in its indices.
+	 */
+	@SuppressWarnings("serial")
+	static class ElementForester extends ArrayForester<Element> {
+		@Override
+		protected Element[] childArray(Element e) {
+			return e.children;
+		}
+
+		@Override
+		protected String tag(Element e) {
+			return e.tag;
+		}
+
+		@Attribute
+		public String attr(Element e, Collection<Element> c,
+				Index<Element> i, String name) {
+			return e.attributes.get(name);
+		}
+	}
+
+	/**
+	 * A node that knows its parent.
+	 */
+	static class Linked {
+		final String tag;
+		final Linked parent;
+		final Linked[] children;
+
+		Linked(Element e, Linked parent) {
+			tag = e.tag;
+			this.parent = parent;
+			children = new Linked[e.children.length];
+			for (int i = 0; i < children.length; i++)
+				children[i] = new Linked(e.children[i], this);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static class LinkedForester extends LinkedArrayForester<Linked> {
+		@Override
+		protected Linked[] childArray(Linked n) {
+			return n.children;
+		}
+
+		@Override
+		protected String tag(Linked n) {
+			return n.tag;
+		}
+
+		@Override
+		protected Linked parentOf(Linked n) {
+			return n.parent;
+		}
+	}
+
+	private static final String xml = "<root><a><b foo='1'/><c><b foo='2'><b/></b></c></a><b><a><c foo='1'/></a></b><c/></root>";
+
+	private static final String[] paths = { "//b", "//a/c/b", "/root/*",
+			"//b/ancestor::*", "//c/preceding::*", "//b/following-sibling::*",
+			"//*[@leaf]", "//~^[ab]$~", "//b/parent::*", "//c[1]", "/>b//b" };
+
+	@Test
+	public void paths() {
+		Element root = parse(xml);
+		XMLToyForester toy = new XMLToyForester();
+		ElementForester ef = new ElementForester();
+		for (String path : paths) {
+			List<Element> expected = toy.path(path).select(root), found = ef
+					.path(path).select(root);
+			assertEquals(path, expected.size(), found.size());
+			for (int i = 0; i < expected.size(); i++)
+				assertSame(path, expected.get(i), found.get(i));
+		}
+		assertEquals(toy.path("//*[@attr('foo') = '1']").select(root),
+				ef.path("//*[@attr('foo') = '1']").select(root));
+	}
+
+	@Test
+	public void linked() {
+		Element root = parse(xml);
+		XMLToyForester toy = new XMLToyForester();
+		Linked lroot = new Linked(root, null);
+		LinkedForester lf = new LinkedForester();
+		assertFalse(lf.index(lroot) instanceof ParentIndex<?>);
+		assertTrue(new ElementForester().index(root) instanceof ParentIndex<?>);
+		for (String path : paths) {
+			List<Element> expected = toy.path(path).select(root);
+			List<Linked> found = lf.path(path).select(lroot);
+			assertEquals(path, expected.size(), found.size());
+			for (int i = 0; i < expected.size(); i++)
+				assertEquals(path, expected.get(i).tag, found.get(i).tag);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package dfh.treepath.test;
 
 import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -13,6 +14,7 @@ import java.util.List;
 import org.junit.Test;
 
 import dfh.treepath.Attribute;
+import dfh.treepath.BatchAttribute;
 import dfh.treepath.Forester;
 import dfh.treepath.Index;
 import dfh.treepath.Path;
@@ -155,6 +157,61 @@ public class AttributeTests {
 		}
 	}
 
+	@SuppressWarnings("serial")
+	@Test
+	public void batchAttributeTest() {
+		final int[] batches = { 0 };
+		Forester<Element> bf = new XMLToyForester() {
+			@SuppressWarnings("unused")
+			@Attribute("fanout")
+			Integer fanout(Element e, Collection<Element> c, Index<Element> i) {
+				return e.children.length;
+			}
+
+			@SuppressWarnings("unused")
+			@BatchAttribute("fanout")
+			void fanouts(List<Element> c, Index<Element> i, int[] column) {
+				batches[0]++;
+				for (int k = 0; k < column.length; k++)
+					column[k] = c.get(k).children.length;
+			}
+		};
+		Element root = parse("<a><b/><b><c/></b><b><c/><c/></b></a>");
+		List<Element> l = bf.path("//b[@fanout > 0]").select(root);
+		assertEquals(2, l.size());
+		assertEquals(root.children[1], l.get(0));
+		assertEquals(1, batches[0]);
+		assertEquals(1, bf.path("//b[@fanout = 2.0]").select(root).size());
+		assertEquals(1, bf.path("//b[@fanout = '1']").select(root).size());
+		assertEquals(2, bf.path("//b[@fanout]").select(root).size());
+		assertEquals(4, batches[0]);
+		// a single candidate is tested on its own
+		assertEquals(1, bf.path("/a[@fanout = 3]").select(root).size());
+		assertEquals(4, batches[0]);
+	}
+
+	@SuppressWarnings("serial")
+	@Test
+	public void batchSignatureTest() {
+		try {
+			new XMLToyForester() {
+				@SuppressWarnings("unused")
+				@Attribute
+				Integer foo(Element e, Collection<Element> c, Index<Element> i) {
+					return 1;
+				}
+
+				@SuppressWarnings("unused")
+				@BatchAttribute("foo")
+				void foo(List<Element> c, Index<Element> i, Integer[] column) {
+				}
+			}.attributes();
+			fail("should have thrown an exception");
+		} catch (PathException e) {
+			assertTrue(e.getMessage().startsWith("ill-formed batch attribute"));
+		}
+	}
+
 	@Test
 	public void falseTest() {
 		Element root = parse("<a><b/><b foo='bar' /></a>");
@@ -195,6 +252,37 @@ public class AttributeTests {
 		assertEquals(1, l.size());
 	}
 
+	@Test
+	public void sharedSubpathTest() {
+		Element root = parse("<a><b><c/><d/></b><b><c/><c/><d/><d/></b><b><c/><c/></b></a>");
+		Path<Element> p = f.path("//b[c][@size(c) > 1][@size(c) = @size(d)]");
+		List<Element> l = p.select(root);
+		assertEquals(1, l.size());
+		assertEquals(root.children[1], l.get(0));
+		p = f.path("//c/parent::*[@size(c) = 2]");
+		assertEquals(2, p.select(root).size());
+		assertEquals(2, p.select(root).size());
+	}
+
+	@SuppressWarnings("serial")
+	@Test
+	public void mutableSubpathTest() {
+		Element root = parse("<a><b><c/><c/></b><b><c/></b></a>");
+		Forester<Element> f = new XMLToyForester() {
+			@SuppressWarnings("unused")
+			@Attribute
+			int drain(Element e, Collection<Element> c, Index<Element> i,
+					Collection<Element> nodes) {
+				int size = nodes.size();
+				nodes.clear();
+				return size;
+			}
+		};
+		// each application receives its own copy of the shared result
+		Path<Element> p = f.path("//b[@drain(c) = 2][@drain(c) = 2]");
+		assertEquals(1, p.select(root).size());
+	}
+
 	@Test
 	public void pickTest() {
 		Element root = parse("<a><b/><b><c/></b><b><c/><c/></b></a>");
@@ -248,6 +336,22 @@ public class AttributeTests {
 		assertEquals("/1/1", s);
 	}
 
+	@Test
+	public void uidsTest() {
+		Element root = parse("<a><b/><c><d/><d id='foo'/></c></a>");
+		Index<Element> i = f.index(root);
+		List<Element> l = f.path("//*").select(root, i);
+		List<String> uids = f.uids(l, i);
+		assertEquals(l.size(), uids.size());
+		for (int j = 0; j < l.size(); j++) {
+			Element e = l.get(j);
+			assertEquals(f.attribute(e, "uid", l, i), uids.get(j));
+		}
+		int[] path = f.uidPath(f.path("id(foo)").first(root, i), i);
+		assertArrayEquals(new int[] { 1, 1 }, path);
+		assertEquals(0, f.uidPath(root, i).length);
+	}
+
 	@Test
 	public void badAttributeTest() {
 		try {
@@ -9,6 +9,8 @@ import java.util.List;
 import org.junit.Test;
 
 import dfh.treepath.Forester;
+import dfh.treepath.Index;
+import dfh.treepath.ParentIndex;
 import dfh.treepath.Path;
 import dfh.treepath.test.XMLToy.Element;
 import dfh.treepath.test.XMLToy.XMLToyForester;
@@ -24,6 +26,40 @@ public class AxisTests {
 
 	@SuppressWarnings("unchecked")
 	private static Forester<Element> f = new XMLToyForester();
+	@SuppressWarnings("unchecked")
+	private static Forester<Element> numbered = new XMLToyForester() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Index<Element> index(Element root) {
+			return new ParentIndex<Element>(root, this) {
+				@Override
+				public String id(Element e) {
+					return e.attributes.get("id");
+				}
+
+				@Override
+				protected boolean numberNodes() {
+					return true;
+				}
+			};
+		}
+	};
+
+	@SuppressWarnings("unchecked")
+	private static Forester<Element> summarized = new XMLToyForester() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Index<Element> index(Element root) {
+			return new ParentIndex<Element>(root, this) {
+				@Override
+				protected boolean summarizeTags() {
+					return true;
+				}
+			};
+		}
+	};
 
 	@Test
 	public void axisTest1() {
@@ -131,6 +167,24 @@ public class AxisTests {
 		assertEquals(2, l.size());
 	}
 
+	@Test
+	public void axisTestSiblingDeep() {
+		Element root = parse("<a><b><c/><d id='foo'/><e/><c/></b></a>");
+		Path<Element> p = f.path("id(foo)/sibling::*");
+		List<Element> l = p.select(root);
+		assertEquals(3, l.size());
+		assertEquals("c", l.get(0).tag);
+		assertEquals("e", l.get(1).tag);
+	}
+
+	@Test
+	public void axisTestFollowingSiblingTag() {
+		Element root = parse("<a><b id='foo'/><c/><d/><c/></a>");
+		Path<Element> p = f.path("id(foo)/following-sibling::c");
+		List<Element> l = p.select(root);
+		assertEquals(2, l.size());
+	}
+
 	@Test
 	public void axisTestSiblingOrSelf() {
 		Element root = parse("<a><e/><b><d/><c id='foo'/><d/></b><e/></a>");
@@ -164,4 +218,57 @@ public class AxisTests {
 		assertEquals(1, l.size());
 		assertEquals("b", l.get(0).tag);
 	}
+
+	@Test
+	public void axisTestRangeScan() {
+		Element root = parse("<a><b id='x'><c><b/><d id='y'/></c><b><e/></b></b><c><d><b id='z'/></d><b/></c><e><b/></e></a>");
+		String[] paths = { "//*/following::*", "//*/preceding::*",
+				"//b/following::b", "//b/preceding::b", "id(y)/following::*",
+				"id(y)/preceding::*", "id(z)/preceding::b[1]",
+				"id(x)/following::*[-1]", "//d/following::*[0]" };
+		for (String path : paths)
+			assertEquals(path, f.path(path).select(root), numbered.path(path)
+					.select(root));
+	}
+
+	@Test
+	public void axisTestPositionPushdown() {
+		Element root = parse("<a><b id='x'><c><b/><d/><b/></c><b><e/></b></b><c><d><b/></d><b/><c/></c><e><b/><b/></e></a>");
+		String[] paths = { "//b[0]", "//b[1]", "//b[-1]", "//b[-3]",
+				"//*[0]", "/a/c[0]", "/a/*[-1]", "id(x)/following-sibling::*[0]",
+				"id(x)/following-sibling::*[-1]", "//b/preceding-sibling::*[-1]",
+				"//b/sibling-or-self::b[1]", "//c/descendant::b[-2]",
+				"//c/descendant-or-self::*[-1]", "//c/child::*[2]",
+				"//e/preceding::*[0]", "//e/preceding::b[-1]", "//e/following::*[0]",
+				"//b[5]", "//b[-20]" };
+		for (String path : paths) {
+			// a leading non-positional predicate prevents the pushdown
+			String unpushed = path.replaceFirst("\\[", "[@true][");
+			for (Forester<Element> fo : new Forester[] { f, numbered })
+				assertEquals(path, fo.path(unpushed).select(root), fo
+						.path(path).select(root));
+		}
+	}
+
+	@Test
+	public void axisTestTagSummaries() {
+		Element root = parse("<a><b><c><b/><d/></c><e><f/></e></b><c><d><b/></d><g/></c><e><b/><f><g/></f></e></a>");
+		String[] paths = { "//b", "//g", "//h", "//e//g", "/>c", "//e/>g",
+				"//c/descendant::b", "//b/descendant-or-self::b",
+				"//a/descendant::g[-1]", "//e/descendant::f[0]" };
+		for (String path : paths)
+			assertEquals(path, f.path(path).select(root), summarized.path(path)
+					.select(root));
+	}
+
+	@Test
+	public void axisTestStructuralJoin() {
+		Element root = parse("<a><b><a><b><c/></b><c><b/></c></a><c/></b><c><a><c><b><c/></b></c></a></c><b><c/></b></a>");
+		String[] paths = { "//a//b", "//b//c", "//a//b//c", "//*//c",
+				"//a/descendant::c", "//b/descendant-or-self::b//c",
+				"//a/b//c", "//c/ancestor::*//b", "//a//b[0]" };
+		for (String path : paths)
+			assertEquals(path, f.path(path).select(root), numbered.path(path)
+					.select(root));
+	}
 }
@@ -2,6 +2,7 @@ package dfh.treepath.test;
 
 import static dfh.treepath.test.XMLToy.parse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -10,10 +11,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -21,6 +26,7 @@ import dfh.treepath.Attribute;
 import dfh.treepath.Forester;
 import dfh.treepath.Index;
 import dfh.treepath.NodeTest;
+import dfh.treepath.ParentIndex;
 import dfh.treepath.Path;
 import dfh.treepath.test.XMLToy.Element;
 import dfh.treepath.test.XMLToy.XMLToyForester;
@@ -348,6 +354,137 @@ public class BasicTests {
 		assertEquals("b", p.first(root).tag);
 	}
 
+	@Test
+	public void forEach() {
+		Element root = parse("<a><b><c/><b/></b><c><b/></c><b/></a>");
+		Path<Element> p = new XMLToyForester().path("//b|//c/b|//*/b");
+		final List<Element> found = new ArrayList<Element>();
+		p.forEach(root, new Consumer<Element>() {
+			@Override
+			public void accept(Element n) {
+				found.add(n);
+			}
+		});
+		assertEquals(p.select(root), found);
+	}
+
+	@Test
+	public void forEachWhile() {
+		Element root = parse("<a><b/><c/><b/><b/></a>");
+		Path<Element> p = new XMLToyForester().path("//b");
+		final List<Element> found = new ArrayList<Element>();
+		assertFalse(p.forEachWhile(root, new Predicate<Element>() {
+			@Override
+			public boolean test(Element n) {
+				found.add(n);
+				return found.size() < 2;
+			}
+		}));
+		assertEquals(2, found.size());
+		assertTrue(p.forEachWhile(root, new Predicate<Element>() {
+			@Override
+			public boolean test(Element n) {
+				return true;
+			}
+		}));
+	}
+
+	@Test
+	public void count() {
+		Element root = parse("<a><b><c/><b/></b><c><b/></c><b/></a>");
+		Forester<Element> f = new XMLToyForester();
+		for (String path : new String[] { "//b", "//b/*", "//b//b", "//*/b",
+				"//c/b|//b", "//b/following-sibling::*", "//b/ancestor::*" })
+			assertEquals(path, f.path(path).select(root).size(), f.path(path)
+					.count(root));
+	}
+
+	@Test
+	public void stream() {
+		Element root = parse("<a><b><c/><b><c/></b></b><c><b/></c><b/><d><b><c/></b></d></a>");
+		Forester<Element> f = new XMLToyForester();
+		Index<Element> i = f.index(root);
+		for (String path : new String[] { "//b", "//b/c", "//b//c", "//*",
+				"//c/b|//b", "//c/ancestor::*" }) {
+			Path<Element> p = f.path(path);
+			List<Element> expected = p.select(root, i);
+			assertEquals(path, expected,
+					p.stream(root, i).collect(Collectors.toList()));
+			assertEquals(path, expected, p.stream(root, i).parallel()
+					.collect(Collectors.toList()));
+			List<Element> unordered = p.stream(root, i, false).parallel()
+					.collect(Collectors.toList());
+			assertEquals(path, expected.size(), unordered.size());
+			assertTrue(path, unordered.containsAll(expected));
+		}
+	}
+
+	/**
+	 * @return a forester whose indices number nodes, summarize tags, or both
+	 */
+	@SuppressWarnings({ "unchecked", "serial" })
+	private static Forester<Element> indexing(final boolean number,
+			final boolean summarize) {
+		return new XMLToyForester() {
+			@Override
+			public Index<Element> index(Element root) {
+				return new ParentIndex<Element>(root, this) {
+					@Override
+					protected boolean numberNodes() {
+						return number;
+					}
+
+					@Override
+					protected boolean summarizeTags() {
+						return summarize;
+					}
+				};
+			}
+		};
+	}
+
+	@Test
+	public void countFromInnerNode() {
+		Element root = parse("<a><b><c/><b/></b><c><b/></c><b/></a>");
+		for (Forester<Element> f : new Forester[] { new XMLToyForester(),
+				indexing(true, false) }) {
+			Index<Element> i = f.index(root);
+			for (Element n : f.path("//*").select(root, i)) {
+				for (String path : new String[] { "/child::*",
+						"/descendant-or-self::*", "/descendant::b",
+						"/child::b", "/*", "*", "//b", "b//*" })
+					assertEquals(path, f.path(path).select(n, i).size(), f
+							.path(path).count(n, i));
+			}
+		}
+	}
+
+	@Test
+	public void streamFromInnerNode() {
+		Element root = parse("<a><b><c/><b><c/></b></b><c><b/></c><b/><d><b><c/></b></d></a>");
+		for (Forester<Element> f : new Forester[] { new XMLToyForester(),
+				indexing(true, false), indexing(false, true),
+				indexing(true, true) }) {
+			Index<Element> i = f.index(root);
+			for (Element n : f.path("//*").select(root, i)) {
+				for (String path : new String[] { "/descendant::b",
+						"/descendant-or-self::c", "/child::*", "/descendant::b/c",
+						"/a/b", "//b", "b//c", "/descendant::b|//c" }) {
+					Path<Element> p = f.path(path);
+					List<Element> expected = p.select(n, i);
+					assertEquals(path, expected,
+							p.stream(n, i).collect(Collectors.toList()));
+					assertEquals(path, expected, p.stream(n, i).parallel()
+							.collect(Collectors.toList()));
+					List<Element> unordered = p.stream(n, i, false)
+							.parallel().collect(Collectors.toList());
+					assertEquals(path, expected.size(), unordered.size());
+					assertTrue(path, unordered.containsAll(expected));
+				}
+			}
+		}
+	}
+
 	@Test
 	public void dollar() {
 		Element root = parse("<a><$b/><c/><d/></a>");
@@ -368,4 +505,61 @@ public class BasicTests {
 		Path<Element> p = new XMLToyForester().path("//~\\bb~");
 		assertNotNull(p.first(root));
 	}
+
+	@Test
+	public void twigPredicates() {
+		Element root = parse("<r><order><customer/><item><price/></item><id/></order><order><item><price/></item><id/></order><order><customer/><item/><id/></order><order><customer/><item><x><price/></x></item><id/></order></r>");
+		Forester<Element> f = new XMLToyForester();
+		// a nested predicate keeps a branch out of the twig
+		String[][] pairs = {
+				{ "//order[customer][item/price]/id",
+						"//order[customer[@true]][item/price[@true]]/id" },
+				{ "//order[customer][item//price]",
+						"//order[customer[@true]][item//price[@true]]" },
+				{ "//order[.//price]", "//order[.//price[@true]]" },
+				{ "//*[*/price]", "//*[*/price[@true]]" },
+				{ "//order[item][0]", "//order[item[@true]][0]" } };
+		for (String[] pair : pairs)
+			assertEquals(pair[0], f.path(pair[1]).select(root), f
+					.path(pair[0]).select(root));
+		assertEquals(1, f.path(pairs[0][0]).select(root).size());
+		assertEquals(2, f.path(pairs[1][0]).select(root).size());
+	}
+
+	@Test
+	public void predicatesUseQueryIndex() {
+		Element root = parse("<r><a id='x'><b/></a><b/></r>");
+		Forester<Element> f = new XMLToyForester();
+		// / in a predicate is the root of the tree, not the candidate
+		assertEquals(2, f.path("//b[/r]").select(root).size());
+		assertEquals(0, f.path("//b[/b]").select(root).size());
+		// ancestor:: may leave the candidate's subtree
+		assertEquals(1, f.path("//b[ancestor::a]").select(root).size());
+		assertEquals(2, f.path("//b[parent::*]").select(root).size());
+		// id() finds nodes anywhere in the tree
+		assertEquals(2, f.path("//b[id(x)]").select(root).size());
+	}
+
+	@Test
+	public void shallowTwig() {
+		Element root = parse("<r><a><b><c><d><e><f><g/></f></e></d></c></b></a><a/></r>");
+		final int[] calls = { 0 };
+		@SuppressWarnings("unchecked")
+		Forester<Element> f = new XMLToyForester() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected List<Element> children(Element n, Index<Element> i) {
+				calls[0]++;
+				return super.children(n, i);
+			}
+		};
+		Index<Element> i = f.index(root);
+		f.path("/*").select(root, i); // build the index
+		calls[0] = 0;
+		assertEquals(1, f.path("/*[a/b][a]").select(root, i).size());
+		// a twig of child steps looks no deeper than its branches
+		assertTrue(calls[0] < 5);
+		assertEquals(1, f.path("/*[a//g]").select(root, i).size());
+	}
 }
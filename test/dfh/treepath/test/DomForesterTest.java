@@ -0,0 +1,116 @@
+package dfh.treepath.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import dfh.treepath.DomForester;
+import dfh.treepath.ParentIndex;
+
+/**
+ * Makes sure {@link DomForester} finds what {@link javax.xml.xpath} finds.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class DomForesterTest {
+	private static final String xml = "<root>\n  <a x='1'><b x='1'/><!-- note --><c><b x='2'>hello<b/></b></c></a>\n"
+			+ "  <b><?pi data?><a><c x='1'/></a></b><c id='last'>goodbye</c>\n</root>";
+
+	private static Document parse(String s) throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		return dbf.newDocumentBuilder().parse(
+				new InputSource(new StringReader(s)));
+	}
+
+	private static void compare(Document doc, String treepath, String xpath)
+			throws Exception {
+		NodeList expected = (NodeList) XPathFactory.newInstance().newXPath()
+				.evaluate(xpath, doc, XPathConstants.NODESET);
+		List<Node> found = DomForester.elements().path(treepath)
+				.select(doc.getDocumentElement());
+		assertEquals(treepath, expected.getLength(), found.size());
+		Set<Node> set = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		set.addAll(found);
+		for (int i = 0; i < expected.getLength(); i++)
+			assertTrue(treepath, set.contains(expected.item(i)));
+	}
+
+	@Test
+	public void xpath() throws Exception {
+		Document doc = parse(xml);
+		compare(doc, "//b", "//b");
+		compare(doc, "/root/*", "/root/*");
+		compare(doc, "//a/c", "//a/c");
+		compare(doc, "//a//b", "//a//b");
+		compare(doc, "//b/parent::*", "//b/parent::*");
+		compare(doc, "//b/ancestor::*", "//b/ancestor::*");
+		compare(doc, "//b/following-sibling::*", "//b/following-sibling::*");
+		compare(doc, "//c/preceding-sibling::*", "//c/preceding-sibling::*");
+		compare(doc, "//c/preceding::a", "//c/preceding::a");
+		compare(doc, "//a/following::c", "//a/following::c");
+		compare(doc, "//*[@leaf]", "//*[not(*)]");
+		compare(doc, "//a[b][c]", "//a[b][c]");
+		compare(doc, "//*[@attr('x') = '1']", "//*[@x = '1']");
+	}
+
+	@Test
+	public void ignored() throws Exception {
+		Document doc = parse(xml);
+		Node root = doc.getDocumentElement();
+		assertEquals(3, DomForester.elements().path("/*/*").select(root).size());
+		assertEquals(3, DomForester.standard().path("/*/*").select(root).size());
+		assertEquals(6, new DomForester().path("/*/*").select(root).size());
+		assertEquals(3, DomForester.standard().path("//a/*").select(root)
+				.size());
+		assertEquals(2, DomForester.standard().path("//b[@s:len(@text) = 5]/*")
+				.select(root).size());
+	}
+
+	@Test
+	public void subtreeRoot() throws Exception {
+		Document doc = parse(xml);
+		DomForester f = DomForester.elements();
+		Node a = f.path("/*/a").first(doc.getDocumentElement());
+		assertTrue(f.path("parent::*").select(a).isEmpty());
+		assertTrue(f.path("ancestor::*").select(a).isEmpty());
+		assertEquals(2, f.path("//*[@depth = 1]").select(a).size());
+		assertEquals(1, f.path("//b[@depth = 3]").select(a).size());
+		assertEquals(3, f.path("//b/ancestor::*").select(a).size());
+		assertEquals(f.path("//b").select(a).size(), f.path("//b[@uid]")
+				.select(a).size());
+	}
+
+	@Test
+	public void attributes() throws Exception {
+		Document doc = parse(xml);
+		Node root = doc.getDocumentElement();
+		DomForester f = DomForester.elements();
+		assertFalse(f.index(root) instanceof ParentIndex<?>);
+		List<Node> found = f.path("id(last)").select(root);
+		assertEquals(1, found.size());
+		assertEquals("goodbye", found.get(0).getTextContent());
+		assertEquals(1, f.path("//*[@text = 'goodbye']").select(root).size());
+		assertEquals(3, f.path("//*[@tag = 'c']").select(root).size());
+		assertEquals(0, f.path("//*[@attr('y')]").select(root).size());
+	}
+}
@@ -0,0 +1,148 @@
+package dfh.treepath.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import dfh.treepath.FileForester;
+import dfh.treepath.Index;
+
+/**
+ * Queries a small directory tree made for the purpose.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class FileForesterTest {
+	private static Path root;
+
+	private static void file(String name, int size) throws IOException {
+		Path p = root.resolve(name);
+		Files.createDirectories(p.getParent());
+		Files.write(p, new byte[size]);
+	}
+
+	@BeforeClass
+	public static void makeTree() throws IOException {
+		root = Files.createTempDirectory("treepath");
+		file("a.log", 2000);
+		file("b.txt", 10);
+		file("logs/c.log", 10);
+		file("logs/d.log", 5000);
+		file("logs/old/e.log", 3000);
+		file("src/f.java", 100);
+		Files.setLastModifiedTime(root.resolve("b.txt"),
+				FileTime.fromMillis(1000000000000L));
+	}
+
+	@AfterClass
+	public static void removeTree() throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file,
+					BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException e)
+					throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Test
+	public void names() {
+		FileForester f = new FileForester();
+		assertEquals(4, f.path("//~\\.log$~").select(root).size());
+		List<Path> found = f.path("/*/*").select(root);
+		assertEquals(4, found.size());
+		assertEquals("a.log", found.get(0).getFileName().toString());
+		assertEquals("src", found.get(3).getFileName().toString());
+		assertEquals(3, f.path("//old/parent::*/*").select(root).size());
+		assertEquals(4, f.path("//*[@dir]").select(root).size());
+	}
+
+	@Test
+	public void attributes() {
+		FileForester f = new FileForester();
+		List<Path> found = f.path("//~\\.log$~[@size > 1000]").select(root);
+		assertEquals(3, found.size());
+		for (Path p : found)
+			assertTrue(p.toString().endsWith(".log"));
+		found = f.path("//*[@mtime = 1000000000000]").select(root);
+		assertEquals(1, found.size());
+		assertEquals(root.resolve("b.txt"), found.get(0));
+	}
+
+	@Test
+	public void positions() {
+		FileForester f = new FileForester();
+		Index<Path> i = f.index(root);
+		List<Path> found = f.path("//*[@depth = 3]").select(root, i);
+		assertEquals(1, found.size());
+		assertEquals(root.resolve("logs/old/e.log"), found.get(0));
+		assertEquals(4, f.path("//*[@depth = 1]").select(root, i).size());
+		assertEquals(found, f.path("//*[@uid = '/2/2/0']").select(root, i));
+		assertEquals(Arrays.asList("/0", "/2/0", "/2/1", "/2/2/0"), f.uids(f
+				.path("//~\\.log$~").select(root, i), i));
+		assertEquals(0, f.path("parent::*").select(root, i).size());
+		assertTrue(f.skipped(i).isEmpty());
+	}
+
+	@Test
+	public void unreadable() throws IOException {
+		Path top = Files.createTempDirectory("treepath");
+		Path locked = Files.createDirectory(top.resolve("locked"));
+		Files.write(locked.resolve("x"), new byte[1]);
+		Files.write(top.resolve("y"), new byte[1]);
+		Files.setPosixFilePermissions(locked,
+				PosixFilePermissions.fromString("---------"));
+		try {
+			// permissions do not bind the superuser
+			Assume.assumeFalse(Files.isReadable(locked));
+			FileForester f = new FileForester();
+			Index<Path> i = f.index(top);
+			assertEquals(3, f.path("//*").select(top, i).size());
+			assertEquals(1, f.skipped(i).size());
+			assertTrue(f.skipped(i).contains(locked));
+		} finally {
+			Files.setPosixFilePermissions(locked,
+					PosixFilePermissions.fromString("rwx------"));
+			Files.delete(locked.resolve("x"));
+			Files.delete(locked);
+			Files.delete(top.resolve("y"));
+			Files.delete(top);
+		}
+	}
+
+	@Test
+	public void parallelism() {
+		FileForester serial = new FileForester(1), parallel = new FileForester(
+				4);
+		Index<Path> i = parallel.index(root);
+		assertEquals(serial.path("//*").select(root),
+				parallel.path("//*").select(root, i));
+		assertEquals(serial.path("//old/ancestor::*").select(root), parallel
+				.path("//old/ancestor::*").select(root, i));
+	}
+}
@@ -21,6 +21,7 @@ import dfh.treepath.Index;
 import dfh.treepath.NodeTest;
 import dfh.treepath.ParentIndex;
 import dfh.treepath.Path;
+import dfh.treepath.PathException;
 import dfh.treepath.test.XMLToy.Element;
 
 /**
@@ -119,6 +120,20 @@ public class FunctionalForesterTest {
 		assertEquals(1, l.size());
 	}
 
+	@Test
+	public void matchesComputedPatternTest() {
+		Element root = parse("<a><foobar p='^foo.*'/><foobar p='^bar'/></a>");
+		Path<Element> p = f.path("//foobar[@s:matches(@tag, @attr('p'))]");
+		List<Element> l = p.select(root);
+		assertEquals(1, l.size());
+		assertEquals(root.children[0], l.get(0));
+	}
+
+	@Test(expected = PathException.class)
+	public void badPatternTest() {
+		f.path("/.[@s:matches(@tag, '(foo')]");
+	}
+
 	@Test
 	public void startsWithTest() {
 		Element root = parse("<foobar/>");
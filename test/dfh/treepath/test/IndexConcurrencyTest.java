@@ -0,0 +1,83 @@
+package dfh.treepath.test;
+
+import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import dfh.treepath.Forester;
+import dfh.treepath.Index;
+import dfh.treepath.Path;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Makes sure a single {@link Index} can be shared among threads, including
+ * threads that race to build it.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class IndexConcurrencyTest {
+	private static final int THREADS = 16;
+	private static final int ROUNDS = 50;
+	private static final int SECTIONS = 100;
+
+	private static Element tree() {
+		StringBuilder b = new StringBuilder("<root>");
+		for (int i = 0; i < SECTIONS; i++) {
+			b.append("<b id='s").append(i).append("'>");
+			for (int j = 0; j <= i % 5; j++)
+				b.append("<c/>");
+			b.append("</b>");
+		}
+		b.append("</root>");
+		return parse(b.toString());
+	}
+
+	@Test
+	public void sharedIndexTest() throws Exception {
+		final Element root = tree();
+		final Forester<Element> f = new XMLToyForester();
+		final Path<Element> byId = f.path("id(s42)/*");
+		final Path<Element> parents = f.path("//c/parent::b");
+		final Path<Element> root2 = f.path("//c/ancestor::root");
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				final Index<Element> i = f.index(root);
+				final CountDownLatch start = new CountDownLatch(1);
+				List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+				for (int t = 0; t < THREADS; t++) {
+					results.add(pool.submit(new Callable<int[]>() {
+						@Override
+						public int[] call() throws Exception {
+							start.await();
+							return new int[] { byId.select(root, i).size(),
+									parents.select(root, i).size(),
+									root2.select(root, i).size() };
+						}
+					}));
+				}
+				start.countDown();
+				for (Future<int[]> r : results) {
+					int[] sizes = r.get();
+					assertEquals(3, sizes[0]);
+					assertEquals(SECTIONS, sizes[1]);
+					assertEquals(1, sizes[2]);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package dfh.treepath.test;
+
+import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import dfh.treepath.Forester;
+import dfh.treepath.Index;
+import dfh.treepath.ParentIndex;
+import dfh.treepath.PathException;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Makes sure an {@link Index} restored from a snapshot behaves like one built
+ * by walking the tree, and that snapshots of other trees are rejected.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class IndexSnapshotTest {
+	private static final String xml = "<root><a id='x'><b id='y'/><c><b id='z'><d/></b></c></a><b><c id='w'/></b></root>";
+
+	/**
+	 * Numbers and summarizes its trees, and counts the times it is asked for
+	 * a node's children.
+	 */
+	@SuppressWarnings("unchecked")
+	private static class CountingForester extends XMLToyForester {
+		private static final long serialVersionUID = 1L;
+		int calls;
+
+		@Override
+		public Index<Element> index(Element root) {
+			return new ParentIndex<Element>(root, this) {
+				@Override
+				public String id(Element e) {
+					return e.attributes.get("id");
+				}
+
+				@Override
+				protected boolean numberNodes() {
+					return true;
+				}
+
+				@Override
+				protected boolean summarizeTags() {
+					return true;
+				}
+			};
+		}
+
+		@Override
+		protected List<Element> children(Element n, Index<Element> i) {
+			calls++;
+			return super.children(n, i);
+		}
+	}
+
+	/**
+	 * Trees of lists, which are equal when their contents are: a node is a
+	 * list whose first element is its tag and whose other elements are its
+	 * children.
+	 */
+	private static class ListForester extends Forester<List<Object>> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Index<List<Object>> index(List<Object> root) {
+			return new ParentIndex<List<Object>>(root, this) {
+				@Override
+				protected boolean numberNodes() {
+					return true;
+				}
+			};
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected List<List<Object>> children(List<Object> n,
+				Index<List<Object>> i) {
+			List<List<Object>> children = new ArrayList<List<Object>>();
+			for (Object o : n.subList(1, n.size()))
+				children.add((List<Object>) o);
+			return children;
+		}
+
+		@Override
+		protected boolean hasTag(List<Object> n, String tag) {
+			return tag.equals(n.get(0));
+		}
+
+		@Override
+		protected boolean matchesTag(List<Object> n, Pattern p) {
+			return p.matcher((String) n.get(0)).find();
+		}
+
+		@Override
+		protected List<Object> parent(List<Object> n, Index<List<Object>> i) {
+			return ((ParentIndex<List<Object>>) i).parent(n);
+		}
+	}
+
+	private static List<Object> node(Object... contents) {
+		return Arrays.asList(contents);
+	}
+
+	/**
+	 * Compares lists of nodes by identity, in any order.
+	 */
+	private static void assertSameNodes(String message, List<?> expected,
+			List<?> actual) {
+		assertEquals(message, expected.size(), actual.size());
+		for (Object n : expected) {
+			boolean found = false;
+			for (Object m : actual)
+				found |= m == n;
+			assertTrue(message, found);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static byte[] snapshot(Element root) throws IOException {
+		return snapshot(root, new XMLToyForester());
+	}
+
+	private static byte[] snapshot(Element root, Forester<Element> f)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		f.index(root).save(out);
+		return out.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Index<Element> restore(Element root, byte[] snapshot)
+			throws IOException {
+		return restore(root, snapshot, new XMLToyForester());
+	}
+
+	private static Index<Element> restore(Element root, byte[] snapshot,
+			Forester<Element> f) throws IOException {
+		Index<Element> i = f.index(root);
+		i.restore(new ByteArrayInputStream(snapshot));
+		return i;
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		Element root = parse(xml);
+		Index<Element> i = restore(root, snapshot(root));
+		Forester<Element> f = new XMLToyForester();
+		for (String id : new String[] { "w", "x", "y", "z" }) {
+			Element e = f.path("id(" + id + ")").first(root, i);
+			assertEquals(id, e.attributes.get("id"));
+			assertSame(f.path("id(" + id + ")").first(root), e);
+		}
+		assertEquals(f.path("//b/ancestor::*").select(root),
+				f.path("//b/ancestor::*").select(root, i));
+		assertEquals(f.path("id(z)/parent::*/parent::*").select(root),
+				f.path("id(z)/parent::*/parent::*").select(root, i));
+	}
+
+	@Test
+	public void sameShape() throws IOException {
+		byte[] snapshot = snapshot(parse(xml));
+		Element other = parse(xml);
+		Index<Element> i = restore(other, snapshot);
+		assertSame(other.children[0],
+				new XMLToyForester().path("id(x)").first(other, i));
+	}
+
+	@Test
+	public void noWalk() throws IOException {
+		Element root = parse(xml);
+		CountingForester f = new CountingForester();
+		byte[] snapshot = snapshot(root, f);
+		f.calls = 0;
+		restore(root, snapshot, f);
+		assertEquals(0, f.calls);
+	}
+
+	@Test
+	public void numberingAndSummaries() throws IOException {
+		Element root = parse(xml);
+		CountingForester f = new CountingForester();
+		Index<Element> walked = f.index(root);
+		Index<Element> i = restore(root, snapshot(root, f), f);
+		for (String path : new String[] { "//b/preceding::*",
+				"//b/following::*", "id(z)/preceding::c", "id(y)/following::b",
+				"//d", "//c//b", "//*", "id(z)/ancestor::*", "//b/parent::*",
+				"id(w)/parent::*/preceding-sibling::*" }) {
+			assertEquals(path, f.path(path).select(root, walked),
+					f.path(path).select(root, i));
+		}
+	}
+
+	@Test
+	public void idBeforeWalk() throws IOException {
+		Element root = parse(xml);
+		CountingForester f = new CountingForester();
+		Index<Element> i = restore(root, snapshot(root, f), f);
+		f.calls = 0;
+		Element z = f.path("id(z)").first(root, i);
+		assertSame(root.children[0].children[1].children[0], z);
+		// only the ancestors of z are asked for their children
+		assertEquals(3, f.calls);
+		assertEquals(3, f.path("ancestor::*").select(z, i).size());
+	}
+
+	@Test
+	public void equalSiblings() throws IOException {
+		List<Object> b1 = node("b"), b2 = node("b"), d = node("d");
+		List<Object> a = node("a", b1, b2), c = node("c", d);
+		List<Object> root = node("root", a, c);
+		ListForester f = new ListForester();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		f.index(root).save(out);
+		Index<List<Object>> i = f.index(root);
+		i.restore(new ByteArrayInputStream(out.toByteArray()));
+		// b2 has a position of its own, though it equals b1
+		assertSameNodes("following", Arrays.asList(b2, c, d),
+				f.path("following::*").select(b1, i));
+		assertSameNodes("following", Arrays.asList(c, d),
+				f.path("following::*").select(b2, i));
+		assertSameNodes("preceding", Arrays.asList(b1),
+				f.path("preceding::*").select(b2, i));
+		assertSameNodes("preceding-sibling", Arrays.asList(b1),
+				f.path("preceding-sibling::*").select(b2, i));
+		assertSame(a, f.path("parent::*").first(b2, i));
+	}
+
+	@Test
+	public void parentBeforeFound() throws IOException {
+		Element root = parse(xml);
+		CountingForester f = new CountingForester();
+		Index<Element> walked = f.index(root);
+		Element z = root.children[0].children[1].children[0];
+		for (String path : new String[] { "parent::*", "ancestor::*",
+				"ancestor-or-self::*", "parent::*/preceding-sibling::*" }) {
+			Index<Element> i = restore(root, snapshot(root, f), f);
+			assertSameNodes(path, f.path(path).select(z, walked), f.path(path)
+					.select(z, i));
+		}
+	}
+
+	@Test
+	public void otherSummaries() throws IOException {
+		Element root = parse(xml);
+		byte[] snapshot = snapshot(root);
+		Index<Element> i = restore(root, snapshot, new CountingForester());
+		assertEquals(3, new CountingForester().path("//b").select(root, i)
+				.size());
+		assertTrue(new CountingForester().path("//e").select(root, i)
+				.isEmpty());
+	}
+
+	@Test(expected = PathException.class)
+	public void wrongShape() throws IOException {
+		Element root = parse("<root><a id='x'/></root>");
+		Index<Element> i = restore(root, snapshot(parse(xml)));
+		new XMLToyForester().path("//*").select(root, i);
+	}
+
+	@Test(expected = PathException.class)
+	public void wrongIds() throws IOException {
+		Element root = parse(xml.replace("'y'", "'v'"));
+		Index<Element> i = restore(root, snapshot(parse(xml)));
+		new XMLToyForester().path("id(y)").select(root, i);
+	}
+
+	@Test(expected = PathException.class)
+	public void corrupt() throws IOException {
+		byte[] snapshot = snapshot(parse(xml));
+		snapshot[15] = 0; // the root's parent
+		restore(parse(xml), snapshot);
+	}
+
+	@Test(expected = PathException.class)
+	public void alreadyBuilt() throws IOException {
+		Element root = parse(xml);
+		byte[] snapshot = snapshot(root);
+		Index<Element> i = new XMLToyForester().index(root);
+		new XMLToyForester().path("id(x)").first(root, i);
+		i.restore(new ByteArrayInputStream(snapshot));
+	}
+}
@@ -0,0 +1,130 @@
+package dfh.treepath.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dfh.treepath.JsonForester;
+import dfh.treepath.JsonTree;
+import dfh.treepath.JsonTree.Node;
+import dfh.treepath.PathException;
+
+/**
+ * Makes sure {@link JsonTree} loads JSON as it would build the equivalent maps
+ * and lists, and that {@link JsonForester} queries it.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class JsonTreeTest {
+	private static final String json = "{\"name\": \"order\", \"items\": [\n"
+			+ "  {\"sku\": \"a1\", \"price\": 12.5, \"tags\": [\"x\", \"y\"]},\n"
+			+ "  {\"sku\": \"b2\", \"price\": 4, \"gift\": true},\n"
+			+ "  {\"sku\": \"c\\u0033\", \"price\": 30, \"note\": null}\n" + "]}";
+
+	private static Map<String, Object> item(String sku, Object price) {
+		Map<String, Object> m = new LinkedHashMap<String, Object>();
+		m.put("sku", sku);
+		m.put("price", price);
+		return m;
+	}
+
+	private static Map<String, Object> order() {
+		List<Object> items = new ArrayList<Object>();
+		Map<String, Object> m = item("a1", 12.5);
+		List<Object> tags = new ArrayList<Object>();
+		tags.add("x");
+		tags.add("y");
+		m.put("tags", tags);
+		items.add(m);
+		m = item("b2", 4L);
+		m.put("gift", true);
+		items.add(m);
+		m = item("c3", 30L);
+		m.put("note", null);
+		items.add(m);
+		Map<String, Object> order = new LinkedHashMap<String, Object>();
+		order.put("name", "order");
+		order.put("items", items);
+		return order;
+	}
+
+	private static JsonTree load(String s) throws Exception {
+		return JsonTree.load(new StringReader(s));
+	}
+
+	@Test
+	public void loadMatchesOf() throws Exception {
+		JsonTree loaded = load(json), built = JsonTree.of(order());
+		assertEquals(built.size(), loaded.size());
+		for (int i = 0; i < built.size(); i++) {
+			Node a = built.node(i), b = loaded.node(i);
+			assertEquals(a.key(), b.key());
+			assertEquals(a.type(), b.type());
+			assertEquals(a.value(), b.value());
+		}
+		assertEquals(order(), loaded.root().object());
+	}
+
+	@Test
+	public void paths() throws Exception {
+		JsonForester f = new JsonForester();
+		for (JsonTree t : new JsonTree[] { load(json), JsonTree.of(order()) }) {
+			Node root = t.root();
+			assertEquals(3, f.path("//items/*/price").select(root).size());
+			assertEquals(2, f.path("//price[@value > 10]").select(root).size());
+			assertEquals(3, f.path("//*[@type = 'number']").select(root).size());
+			assertEquals(1, f.path("//*[@type = 'null']").select(root).size());
+			List<Node> found = f.path("//tags/*[1]").select(root);
+			assertEquals(1, found.size());
+			assertEquals("y", found.get(0).value());
+			assertNull(found.get(0).key());
+			found = f.path("//gift/parent::*/sku").select(root);
+			assertEquals(1, found.size());
+			assertEquals("b2", found.get(0).value());
+		}
+	}
+
+	@Test
+	public void subtreeRoot() throws Exception {
+		JsonForester f = new JsonForester();
+		Node items = f.path("/*/items").first(load(json).root());
+		assertTrue(f.path("parent::*").select(items).isEmpty());
+		assertTrue(f.path("ancestor::*").select(items).isEmpty());
+		assertEquals(3, f.path("//*[@depth = 1]").select(items).size());
+		assertEquals(3, f.path("//price[@depth = 2]").select(items).size());
+		assertEquals(2, f.path("//tags/ancestor::*").select(items).size());
+	}
+
+	@Test
+	public void originals() {
+		Map<String, Object> order = order();
+		JsonTree t = JsonTree.of(order);
+		assertSame(order, t.root().object());
+		List<Node> items = new JsonForester().path("//items").select(t.root());
+		assertSame(order.get("items"), items.get(0).object());
+	}
+
+	@Test
+	public void malformed() throws Exception {
+		for (String s : new String[] { "", "{", "[1 2]", "{\"a\" 1}", "tru",
+				"\"abc", "{}x", "[\"\\q\"]" }) {
+			try {
+				load(s);
+				fail("accepted " + s);
+			} catch (PathException e) {
+			}
+		}
+	}
+}
@@ -4,9 +4,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.junit.Test;
 
@@ -15,6 +18,7 @@ import dfh.grammar.Match;
 import dfh.grammar.Matcher;
 import dfh.grammar.Options;
 import dfh.treepath.Forester;
+import dfh.treepath.Index;
 import dfh.treepath.MatchPath;
 
 /**
@@ -277,6 +281,97 @@ public class MatchPathTest {
 		assertTrue(set.contains(""));
 	}
 
+	@Test
+	public void ignoreTest() {
+		Match n = cfg.matches("I  see \tyou").match();
+		List<Match> kids = f.path("//VP/parent::*/*").select(n);
+		assertEquals(2, kids.size());
+		assertEquals("I", kids.get(0).group());
+		assertEquals("see \tyou", kids.get(1).group());
+		assertEquals(0, f.path("//s").select(n).size());
+		@SuppressWarnings("unchecked")
+		MatchPath mp = new MatchPath();
+		assertEquals(3, mp.path("//VP/parent::*/*").select(n).size());
+		assertEquals(2, mp.path("//s").select(n).size());
+		@SuppressWarnings("unchecked")
+		MatchPath ws = new MatchPath(MatchPath.whitespaceNT, MatchPath.zeroNT);
+		assertEquals(f.path("//*").select(n), ws.path("//*").select(n));
+	}
+
+	@Test
+	public void labelPostingsTest() {
+		Match n = cfg.matches(
+				"the fat cat sat on the mat with a very fat dog").match();
+		List<Match> all = f.path("//*").select(n);
+		for (String label : new String[] { "NP", "N", "PP", "s", "Int", "foo" }) {
+			List<Match> expected = new ArrayList<Match>();
+			for (Match m : all) {
+				if (m.hasLabel(label))
+					expected.add(m);
+			}
+			assertEquals(expected, f.path("//" + label).select(n));
+		}
+		Pattern p = Pattern.compile("P$");
+		List<Match> expected = new ArrayList<Match>();
+		for (Match m : all) {
+			if (m.hasLabel(p))
+				expected.add(m);
+		}
+		assertEquals(expected, f.path("//~P$~").select(n));
+	}
+
+	@Test
+	public void countTest() {
+		Match n = cfg.matches(
+				"the fat cat sat on the mat with a very fat dog").match();
+		Index<Match> i = f.index(n);
+		for (String path : new String[] { "//NP", "//~P$~", "//*", "//NP/N",
+				"//NP/*", "//PP//N", "//NP//NP", "//NP | //N", "//foo" })
+			assertEquals(path, f.path(path).select(n, i).size(), f.path(path)
+					.count(n, i));
+	}
+
+	@Test
+	public void groupViewTest() {
+		Match n = cfg.matches("the fat cat sat on the mat").match();
+		List<Match> list = f.path("//N[@group = 'cat']").select(n);
+		assertEquals(1, list.size());
+		assertEquals("cat", list.get(0).group());
+		assertEquals(1, f.path("//N[@group != 'cat']").select(n).size());
+		assertEquals(2, f.path("//N[@s:ends-with(@group, 'at')]").select(n)
+				.size());
+		assertEquals(1, f.path("//NP[@s:matches(@group, 'the m.*')]")
+				.select(n).size());
+		assertEquals(2, f.path("//NP[@s:contains(@group, 'the')]").select(n)
+				.size());
+		assertEquals(1, f.path("//N[@s:uc(@group) = 'MAT']").select(n).size());
+		Object group = f.attribute(list.get(0), "group");
+		assertTrue(group instanceof String);
+		assertEquals("cat", group);
+	}
+
+	@SuppressWarnings("serial")
+	@Test
+	public void groupOverrideTest() {
+		Forester<Match> upper = new MatchPath() {
+			@Override
+			public String group(Match m, Collection<Match> c, Index<Match> i) {
+				return m.group().toUpperCase();
+			}
+
+			@Override
+			protected boolean endsWith(Match n, Collection<Match> c,
+					Index<Match> i, String s, String suffix) {
+				return !s.endsWith(suffix);
+			}
+		};
+		Match n = cfg.matches("the fat cat sat on the mat").match();
+		assertEquals(1, upper.path("//N[@group = 'CAT']").select(n).size());
+		assertTrue(upper.path("//N[@group = 'cat']").select(n).isEmpty());
+		assertEquals(2, upper.path("//N[@s:ends-with(@group, 'at')]")
+				.select(n).size());
+	}
+
 	@Test
 	public void treeSizeTest() {
 		Grammar g = new Grammar("rule = 'a'+");
@@ -19,6 +19,7 @@ import dfh.treepath.AttributeLibrary;
 import dfh.treepath.Forester;
 import dfh.treepath.Index;
 import dfh.treepath.Path;
+import dfh.treepath.PathException;
 import dfh.treepath.test.XMLToy.Element;
 import dfh.treepath.test.XMLToy.XMLToyForester;
 
@@ -99,4 +100,14 @@ public class MixinTest implements Serializable {
 		assertEquals("foo", s);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test(expected = PathException.class)
+	public void isolationTest() {
+		Forester<Element> f = new XMLToyForester();
+		f.mixin(TestLibrary.class);
+		f.path("/.[@foo]");
+		// a forester of the same class should not see the mixin
+		new XMLToyForester().path("/.[@foo]");
+	}
+
 }
@@ -0,0 +1,138 @@
+package dfh.treepath.test;
+
+import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import dfh.treepath.Forester;
+import dfh.treepath.Path;
+import dfh.treepath.PathException;
+import dfh.treepath.StreamingEvaluator;
+import dfh.treepath.StreamingEvaluator.Listener;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Makes sure {@link StreamingEvaluator} finds the same nodes as
+ * {@link Path#select(Object)}.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class StreamingEvaluatorTest {
+	private static final String xml = "<root><a><b foo='1'/><c><b foo='2'><b/></b></c></a><b><a><c foo='1'/></a></b><c/></root>";
+
+	private static void stream(Element e, StreamingEvaluator<Element> se) {
+		se.start(e);
+		for (Element c : e.children)
+			stream(c, se);
+		se.end();
+	}
+
+	private static List<Element> stream(String path, Element root) {
+		Forester<Element> f = new XMLToyForester();
+		final List<Element> list = new ArrayList<Element>();
+		StreamingEvaluator<Element> se = f.path(path).streamingEvaluator(
+				new Listener<Element>() {
+					@Override
+					public void matched(Element n) {
+						list.add(n);
+					}
+				});
+		stream(root, se);
+		return list;
+	}
+
+	private static void compare(String path) {
+		Element root = parse(xml);
+		List<Element> selected = new XMLToyForester().path(path).select(root);
+		List<Element> streamed = stream(path, root);
+		assertEquals(path, selected.size(), streamed.size());
+		assertEquals(path, new HashSet<Element>(selected),
+				new HashSet<Element>(streamed));
+	}
+
+	@Test
+	public void anywhere() {
+		compare("//b");
+		compare("//a//b");
+		compare("//*");
+	}
+
+	@Test
+	public void child() {
+		compare("/root/a");
+		compare("//a/c/b");
+		compare("a/*");
+	}
+
+	@Test
+	public void closest() {
+		compare("/>b");
+		compare("//a/>b");
+		compare("/>*[@attr('foo') = '1']");
+	}
+
+	@Test
+	public void axes() {
+		compare("//a/descendant::b");
+		compare("//a/descendant-or-self::*");
+		compare("//b/self::b");
+		compare("//a/child::c");
+		compare("/descendant::b");
+		compare("/descendant-or-self::*/c");
+		compare("/child::a");
+	}
+
+	@Test
+	public void predicates() {
+		compare("//b[@attr('foo')]");
+		compare("//*[@attr('foo') = '1' or @tag = 'c']");
+	}
+
+	@Test
+	public void forks() {
+		compare("//a | //c");
+		compare("//b | /root/b");
+	}
+
+	@Test
+	public void documentOrder() {
+		List<Element> list = stream("//b", parse(xml));
+		assertEquals(4, list.size());
+		assertEquals("1", list.get(0).attributes.get("foo"));
+		assertEquals("2", list.get(1).attributes.get("foo"));
+		assertEquals(0, list.get(2).attributes.size());
+	}
+
+	@Test(expected = PathException.class)
+	public void reverseAxis() {
+		stream("//b/parent::*", parse(xml));
+	}
+
+	@Test(expected = PathException.class)
+	public void pathPredicate() {
+		stream("//a[b]", parse(xml));
+	}
+
+	@Test(expected = PathException.class)
+	public void indexPredicate() {
+		stream("//b[0]", parse(xml));
+	}
+
+	@Test(expected = PathException.class)
+	public void leafPredicate() {
+		stream("//b[@leaf]", parse(xml));
+	}
+
+	@Test(expected = PathException.class)
+	public void nestedDepthPredicate() {
+		stream("//b[@foo = 1 or @m:abs(@depth) > 1]", parse(xml));
+	}
+}
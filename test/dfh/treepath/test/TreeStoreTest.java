@@ -0,0 +1,130 @@
+package dfh.treepath.test;
+
+import static dfh.treepath.test.XMLToy.parse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dfh.treepath.Forester;
+import dfh.treepath.PathException;
+import dfh.treepath.TreeStore;
+import dfh.treepath.TreeStore.Describer;
+import dfh.treepath.TreeStore.Node;
+import dfh.treepath.TreeStoreForester;
+import dfh.treepath.test.XMLToy.Element;
+import dfh.treepath.test.XMLToy.XMLToyForester;
+
+/**
+ * Makes sure trees survive the round trip through a {@link TreeStore} and can
+ * be queried there.
+ * <p>
+ *
+ * @author David F. Houghton - Oct 19, 2026
+ *
+ */
+public class TreeStoreTest {
+	private static final Describer<Element> describer = new Describer<Element>() {
+		@Override
+		public String tag(Element n) {
+			return n.tag;
+		}
+
+		@Override
+		public Map<String, String> attributes(Element n) {
+			return n.attributes;
+		}
+	};
+
+	private static File file(Element root) throws IOException {
+		File file = File.createTempFile("treestore", ".tps");
+		file.deleteOnExit();
+		TreeStore.write(root, new XMLToyForester(), describer, file);
+		return file;
+	}
+
+	private static TreeStore store(Element root) throws IOException {
+		return TreeStore.open(file(root));
+	}
+
+	private static void compare(Element root, TreeStore store, String path) {
+		List<Element> expected = new XMLToyForester().path(path).select(root);
+		List<Node> found = new TreeStoreForester().path(path).select(
+				store.root());
+		assertEquals(path, expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(path, expected.get(i).tag, found.get(i).tag());
+			assertEquals(path, expected.get(i).attributes,
+					found.get(i).attributes());
+		}
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		Element root = parse("<a><b foo='1'/><c><b foo='2'><d/></b></c><e bar='\u00e7'/></a>");
+		TreeStore store = store(root);
+		assertEquals(6, store.size());
+		Node n = store.root();
+		assertEquals("a", n.tag());
+		assertEquals("c", store.node(2).tag());
+		assertEquals("2", store.node(3).attribute("foo"));
+		assertEquals("\u00e7", store.node(5).attribute("bar"));
+	}
+
+	@Test
+	public void paths() throws IOException {
+		Element root = parse("<root><a><b foo='1'/><c><b foo='2'><b/></b></c></a><b><a><c foo='1'/></a></b><c/></root>");
+		TreeStore store = store(root);
+		compare(root, store, "//b");
+		compare(root, store, "//a/c/b");
+		compare(root, store, "//b/ancestor::*");
+		compare(root, store, "//c/preceding::*");
+		compare(root, store, "//c/following::*");
+		compare(root, store, "//*[@attr('foo') = '1']");
+		compare(root, store, "//b[@uid = '/0/1/0']");
+		compare(root, store, "//c/parent::*");
+	}
+
+	@Test
+	public void identity() throws IOException {
+		TreeStore store = store(parse("<a><b/><b/></a>"));
+		Forester<Node> f = new TreeStoreForester();
+		assertEquals(store.node(1), f.path("/a/b[0]").first(store.root()));
+		assertEquals(store.root(), f.path("//b/parent::*").first(store.root()));
+		Node b = store.node(2);
+		assertSame(b, store.node(2));
+		assertSame(b, f.path("/a/b[1]").first(store.root()));
+	}
+
+	@Test(expected = PathException.class)
+	public void truncated() throws IOException {
+		File file = file(parse("<a><b foo='1'/><b/></a>"));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 1);
+		} finally {
+			raf.close();
+		}
+		TreeStore.open(file);
+	}
+
+	@Test(expected = PathException.class)
+	public void corruptHeader() throws IOException {
+		File file = file(parse("<a><b foo='1'/><b/></a>"));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// a node count whose offsets overflow an int
+			raf.seek(8);
+			raf.writeInt(0x40000001);
+		} finally {
+			raf.close();
+		}
+		TreeStore.open(file);
+	}
+}
@@ -152,6 +152,11 @@ public class XMLToy {
 			return n.tag.equals(tag);
 		}
 
+		@Override
+		protected String tag(Element n) {
+			return n.tag;
+		}
+
 		@Override
 		protected boolean matchesTag(Element n, Pattern p) {
 			return p.matcher(n.tag).find();